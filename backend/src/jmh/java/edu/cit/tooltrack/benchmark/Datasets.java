@@ -0,0 +1,114 @@
+package edu.cit.tooltrack.benchmark;
+
+import edu.cit.tooltrack.dto.TransactionsDTO;
+import edu.cit.tooltrack.entity.ToolItems;
+import edu.cit.tooltrack.entity.ToolTransaction;
+import edu.cit.tooltrack.entity.User;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic rows shared by the benchmarks. Proportions roughly follow production:
+ * one tool per 10 transactions, one user per 20, 60% of transactions approved borrows.
+ */
+final class Datasets {
+
+    static final long SEED = 42;
+    private static final String[] CATEGORIES = {"Power Tools", "Hand Tools", "Measuring", "Safety", "Electrical"};
+    private static final long START = Timestamp.valueOf("2024-01-01 00:00:00").getTime();
+    private static final long YEAR_MS = 365L * 24 * 60 * 60 * 1000;
+
+    private Datasets() {
+    }
+
+    static List<ToolItems> tools(int count) {
+        List<ToolItems> tools = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ToolItems tool = new ToolItems();
+            tool.setTool_id(i + 1);
+            tool.setName("Tool " + i);
+            tool.setCategory(CATEGORIES[i % CATEGORIES.length]);
+            tool.setLocation("Shelf " + (i % 40));
+            tool.setDescription("Synthetic tool number " + i + " used for benchmarking");
+            tool.setQr_code("https://tooltrack.example.com/qr/" + i + ".png");
+            tool.setQr_code_name(i + ".png");
+            tool.setImage_url("https://tooltrack.example.com/images/" + i + ".jpg");
+            tool.setImage_name(i + ".jpg");
+            tool.setDate_acquired(new Timestamp(START));
+            tool.setCreated_at(new Timestamp(START));
+            tool.setIs_active(true);
+            tools.add(tool);
+        }
+        return tools;
+    }
+
+    static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setUser_id(i + 1);
+            user.setFirst_name("First" + i);
+            user.setLast_name("Last" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setRole("Staff");
+            users.add(user);
+        }
+        return users;
+    }
+
+    static List<ToolTransaction> transactions(int rows) {
+        Random random = new Random(SEED);
+        List<ToolItems> tools = tools(Math.max(1, rows / 10));
+        List<User> users = users(Math.max(1, rows / 20));
+        List<ToolTransaction> transactions = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ToolTransaction transaction = new ToolTransaction();
+            transaction.setTransaction_id(i + 1);
+            //skewed so a handful of tools are clearly "popular"
+            int toolIndex = (int) (Math.pow(random.nextDouble(), 3) * tools.size());
+            transaction.setTool_id(tools.get(toolIndex));
+            transaction.setUser_id(users.get(random.nextInt(users.size())));
+            long borrowed = START + (long) (random.nextDouble() * YEAR_MS);
+            transaction.setBorrow_date(new Timestamp(borrowed));
+            if (random.nextInt(10) < 6) {
+                transaction.setStatus(ToolTransaction.Status.approved);
+                transaction.setTransaction_type(ToolTransaction.TransactionType.borrow);
+                transaction.setDue_date(new Timestamp(borrowed + 2L * 24 * 60 * 60 * 1000));
+            } else {
+                transaction.setStatus(random.nextBoolean() ? ToolTransaction.Status.pending : ToolTransaction.Status.rejected);
+            }
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+
+    static List<TransactionsDTO> transactionDTOs(int rows) {
+        List<TransactionsDTO> dtos = new ArrayList<>(rows);
+        for (ToolTransaction transaction : transactions(rows)) {
+            dtos.add(toDTO(transaction));
+        }
+        return dtos;
+    }
+
+    //same field copy the JPQL projection performs; ToolTransactionService.mapToDTO did this per entity
+    static TransactionsDTO toDTO(ToolTransaction transaction) {
+        ToolItems item = transaction.getTool_id();
+        User user = transaction.getUser_id();
+        return new TransactionsDTO(
+                transaction.getTransaction_id(),
+                user.getUser_id(),
+                user.getFirst_name(),
+                user.getLast_name(),
+                user.getEmail(),
+                item.getTool_id(),
+                item.getName(),
+                transaction.getBorrow_date(),
+                transaction.getDue_date(),
+                transaction.getReturn_date(),
+                transaction.getTransaction_type(),
+                transaction.getStatus());
+    }
+}
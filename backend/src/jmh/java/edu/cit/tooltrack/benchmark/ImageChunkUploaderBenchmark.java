@@ -0,0 +1,109 @@
+package edu.cit.tooltrack.benchmark;
+
+import edu.cit.tooltrack.entity.ImageBlob;
+import edu.cit.tooltrack.service.CleanupJobService;
+import edu.cit.tooltrack.service.ImageBlobService;
+import edu.cit.tooltrack.service.ImageChunkUploader;
+import edu.cit.tooltrack.service.ImagePipelineService;
+import edu.cit.tooltrack.service.BlobStore;
+import edu.cit.tooltrack.service.LocalBlobStore;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-side cost of a chunked image upload: every chunk of one file is pushed through
+ * ImageChunkUploader.uploadChunk from an in-memory request body. With store=mock the blob store is
+ * mocked, so this measures the local staging path only; store=local adds the copy into a
+ * LocalBlobStore on disk. chunkBytes plays the role of the 1k/100k/1M dataset sizes.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=ImageChunkUploaderBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageChunkUploaderBenchmark {
+
+    private static final int CHUNKS = 4;
+
+    @Param({"1000", "100000", "1000000"})
+    public int chunkBytes;
+
+    @Param({"mock", "local"})
+    public String store;
+
+    private final AtomicLong uploads = new AtomicLong();
+    private ImageChunkUploader uploader;
+    private byte[] chunk;
+    private Path storageRoot;
+
+    @Setup
+    public void setUp() throws IOException {
+        chunk = new byte[chunkBytes];
+        new Random(Datasets.SEED).nextBytes(chunk);
+
+        BlobStore blobStore;
+        if ("local".equals(store)) {
+            storageRoot = Files.createTempDirectory("blob-store");
+            blobStore = new LocalBlobStore(storageRoot.toString(), "http://localhost:8080/files/");
+        } else {
+            blobStore = Mockito.mock(BlobStore.class);
+            Mockito.when(blobStore.upload(Mockito.any(File.class), Mockito.anyString(), Mockito.anyString()))
+                    .thenReturn(CompletableFuture.completedFuture("https://tooltrack.example.com/image.jpg"));
+        }
+        uploader = new ImageChunkUploader();
+        ReflectionTestUtils.setField(uploader, "blobStore", blobStore);
+        ReflectionTestUtils.setField(uploader, "cleanupJobService", Mockito.mock(CleanupJobService.class));
+        ImagePipelineService imagePipelineService = Mockito.mock(ImagePipelineService.class);
+        Mockito.when(imagePipelineService.createVariants(Mockito.any(Path.class), Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(CompletableFuture.completedFuture(Map.of()));
+        ReflectionTestUtils.setField(uploader, "imagePipelineService", imagePipelineService);
+        //every upload is new content, so each one pays for the hash, the PUT and the registration
+        ImageBlobService imageBlobService = Mockito.mock(ImageBlobService.class);
+        Mockito.when(imageBlobService.register(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyMap()))
+                .thenAnswer(invocation -> {
+                    ImageBlob blob = new ImageBlob();
+                    blob.setObject_name(invocation.getArgument(2));
+                    blob.setImage_url(invocation.getArgument(3));
+                    return blob;
+                });
+        ReflectionTestUtils.setField(uploader, "imageBlobService", imageBlobService);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (storageRoot != null) {
+            try (var paths = Files.walk(storageRoot)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> uploadFile() throws IOException {
+        String name = "bench_" + uploads.incrementAndGet() + ".jpg";
+        Map<String, String> imageUrl = null;
+        for (int i = 0; i < CHUNKS; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/toolitem/upload");
+            request.setContent(chunk);
+            imageUrl = uploader.uploadChunk(name, (long) chunkBytes * CHUNKS, i, CHUNKS, request, "Tool_Images/").join();
+        }
+        return imageUrl;
+    }
+}
@@ -0,0 +1,50 @@
+package edu.cit.tooltrack.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.tooltrack.dto.TransactionsDTO;
+import edu.cit.tooltrack.entity.ToolItems;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the list payloads returned by /getAllTool and /getAllTransactions,
+ * using the same ObjectMapper defaults Spring MVC configures. Output is discarded so only
+ * serialization cost is measured.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=JacksonSerializationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class JacksonSerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<ToolItems> tools;
+    private List<TransactionsDTO> transactions;
+
+    @Setup
+    public void setUp() {
+        tools = Datasets.tools(rows);
+        transactions = Datasets.transactionDTOs(rows);
+    }
+
+    @Benchmark
+    public void serializeToolItems() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), tools);
+    }
+
+    @Benchmark
+    public void serializeTransactions() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), transactions);
+    }
+}
@@ -0,0 +1,82 @@
+package edu.cit.tooltrack.benchmark;
+
+import edu.cit.tooltrack.dto.UserResponseDTO;
+import edu.cit.tooltrack.security.jwt.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token verification throughput: the old JwtService decoded the secret and built a new parser
+ * on every call (legacy*), the current one reuses a key ring and parser built at startup.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="JwtServiceBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("k".repeat(64).getBytes());
+
+    private static final UserResponseDTO USER = new UserResponseDTO("staff@example.com", "Staff", "Sam", "Staff", false);
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SECRET, "k1", "");
+        token = jwtService.generateToken(USER);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(USER);
+    }
+
+    @Benchmark
+    public Claims legacyParse() {
+        return Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Claims cachedParse() {
+        return jwtService.parseClaims(token);
+    }
+
+    //the old filter parsed the token four times: extractUserName, extractRole, then isTokenValid
+    //re-parsed it for the username and again for the expiration
+    @Benchmark
+    public boolean legacyFilterPath() {
+        String subject = legacyClaims().getSubject();
+        String role = legacyClaims().get("role", String.class);
+        boolean sameUser = legacyClaims().getSubject().equals(subject);
+        boolean expired = legacyClaims().getExpiration().before(new Date());
+        return role != null && sameUser && !expired;
+    }
+
+    @Benchmark
+    public boolean cachedFilterPath() {
+        Claims claims = jwtService.parseClaims(token);
+        return claims.getSubject() != null && claims.get("role", String.class) != null
+                && !claims.getExpiration().before(new Date());
+    }
+
+    private Claims legacyClaims() {
+        return Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token).getPayload();
+    }
+
+    private static SecretKey legacyKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+    }
+}
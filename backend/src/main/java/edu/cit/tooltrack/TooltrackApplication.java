@@ -5,11 +5,13 @@ import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @OpenAPIDefinition(
 		info = @Info(title = "TookTrack", version = "1.0", description = "API for tooltrack project")
 )
 @SpringBootApplication
+@EnableScheduling
 public class TooltrackApplication {
 
 
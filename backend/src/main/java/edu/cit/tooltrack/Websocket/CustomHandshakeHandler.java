@@ -3,30 +3,18 @@ package edu.cit.tooltrack.Websocket;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import java.net.URI;
 import java.security.Principal;
 import java.util.Map;
-import java.util.UUID;
 
 public class CustomHandshakeHandler extends DefaultHandshakeHandler {
 
+    //the user's email, as verified by JwtHandshakeInterceptor; it is what convertAndSendToUser routes on
     @Override
     protected Principal determineUser(ServerHttpRequest request, WebSocketHandler wsHandler, Map<String, Object> attributes) {
-        URI uri = request.getURI();
-
-        // Parse query parameters
-        Map<String, String> queryParams = UriComponentsBuilder.fromUri(uri)
-                .build()
-                .getQueryParams()
-                .toSingleValueMap();
-
-        // Extract userId
-        String userId = queryParams.get("userId");
-
-        if (userId != null) {
-            return () -> userId; // Assign userId as Principal
+        String email = (String) attributes.get(JwtHandshakeInterceptor.USER_ATTRIBUTE);
+        if (email != null) {
+            return () -> email;
         }
         return null;
     }
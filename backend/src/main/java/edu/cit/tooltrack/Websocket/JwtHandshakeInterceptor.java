@@ -0,0 +1,69 @@
+package edu.cit.tooltrack.Websocket;
+
+import edu.cit.tooltrack.security.jwt.JwtService;
+import edu.cit.tooltrack.security.jwt.UserStatusCache;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Authenticates the WebSocket handshake with the same JWT as the REST API, so the session's user
+ * (and with it every /user/queue/** delivery) comes from a verified token rather than a client-chosen
+ * id. Browsers cannot set headers on WebSocket/SockJS requests, so the token may also be sent as the
+ * access_token query parameter. Handshakes without a valid token are refused with 401.
+ */
+@Component
+@Slf4j
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    //session attribute holding the verified email, read by CustomHandshakeHandler
+    static final String USER_ATTRIBUTE = "tooltrack.user";
+
+    private final JwtService jwtService;
+    private final UserStatusCache userStatusCache;
+
+    public JwtHandshakeInterceptor(JwtService jwtService, UserStatusCache userStatusCache) {
+        this.jwtService = jwtService;
+        this.userStatusCache = userStatusCache;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = token(request);
+        String email = null;
+        if (token != null) {
+            try {
+                email = jwtService.parseClaims(token).getSubject();
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Rejected WebSocket JWT: {}", e.getMessage());
+            }
+        }
+        if (email == null || !userStatusCache.isActive(email)) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(USER_ATTRIBUTE, email);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private static String token(ServerHttpRequest request) {
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("access_token");
+    }
+}
@@ -0,0 +1,76 @@
+package edu.cit.tooltrack.Websocket;
+
+import edu.cit.tooltrack.service.NotificationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Replays missed notifications when a client (re)subscribes to /user/queue/notifications. The client
+ * sends the last seq it saw as a last-seq header on CONNECT (or on the SUBSCRIBE itself). The replay
+ * runs after the user destination handler has passed the subscription to the broker, so none of it
+ * is sent before the session is listening.
+ */
+@Component
+@Slf4j
+public class NotificationCatchUpInterceptor implements ExecutorChannelInterceptor {
+
+    static final String LAST_SEQ_HEADER = "last-seq";
+    private static final String LAST_SEQ_ATTRIBUTE = "tooltrack.lastSeq";
+    private static final String NOTIFICATIONS_DESTINATION = "/user" + WebsocketConfiguration.NOTIFICATIONS_QUEUE;
+
+    //lazy: the messaging template it uses is built by the same broker configuration that registers this interceptor
+    @Autowired
+    @Lazy
+    private NotificationService notificationService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+        String lastSeq = accessor.getFirstNativeHeader(LAST_SEQ_HEADER);
+        if (StompCommand.CONNECT.equals(accessor.getCommand()) && lastSeq != null && sessionAttributes != null) {
+            sessionAttributes.put(LAST_SEQ_ATTRIBUTE, lastSeq);
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof UserDestinationMessageHandler)) {
+            return;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        Principal user = accessor.getUser();
+        if (!StompCommand.SUBSCRIBE.equals(accessor.getCommand()) || user == null
+                || !NOTIFICATIONS_DESTINATION.equals(accessor.getDestination())) {
+            return;
+        }
+        String lastSeq = accessor.getFirstNativeHeader(LAST_SEQ_HEADER);
+        if (lastSeq == null && accessor.getSessionAttributes() != null) {
+            lastSeq = (String) accessor.getSessionAttributes().get(LAST_SEQ_ATTRIBUTE);
+        }
+        if (lastSeq == null) {
+            //a first-time client has nothing to catch up on; its history is in the inbox
+            return;
+        }
+        try {
+            notificationService.catchUp(user.getName(), accessor.getSessionId(), Integer.parseInt(lastSeq));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid last-seq {} from {}", lastSeq, user.getName());
+        } catch (RuntimeException e) {
+            log.warn("Notification catch-up failed for {}: {}", user.getName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package edu.cit.tooltrack.Websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * WebSocket meters for /actuator/metrics: open sessions, sessions closed for exceeding the send
+ * limits (slow consumers), idle or failed, frames per direction (tooltrack.websocket.messages, whose
+ * rate is the message rate) and the active threads and queued frames of both channel executors.
+ */
+@Component
+public class WebSocketMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    //lazy: these are built by the broker configuration that installs the interceptors below
+    @Autowired
+    @Lazy
+    private WebSocketMessageBrokerStats brokerStats;
+    @Autowired
+    @Lazy
+    @Qualifier("clientInboundChannelExecutor")
+    private ThreadPoolTaskExecutor inboundExecutor;
+    @Autowired
+    @Lazy
+    @Qualifier("clientOutboundChannelExecutor")
+    private ThreadPoolTaskExecutor outboundExecutor;
+
+    private Counter inboundMessages;
+    private Counter outboundMessages;
+
+    @PostConstruct
+    void register() {
+        Gauge.builder("tooltrack.websocket.sessions", this, metrics -> metrics.sessionStat(SubProtocolWebSocketHandler.Stats::getTotalSessions))
+                .description("Open WebSocket/SockJS sessions").register(meterRegistry);
+        FunctionCounter.builder("tooltrack.websocket.sessions.closed", this, metrics -> metrics.sessionStat(SubProtocolWebSocketHandler.Stats::getLimitExceededSessions))
+                .tag("reason", "send-limit").description("Sessions closed as slow consumers").register(meterRegistry);
+        FunctionCounter.builder("tooltrack.websocket.sessions.closed", this, metrics -> metrics.sessionStat(SubProtocolWebSocketHandler.Stats::getNoMessagesReceivedSessions))
+                .tag("reason", "no-messages").register(meterRegistry);
+        FunctionCounter.builder("tooltrack.websocket.sessions.closed", this, metrics -> metrics.sessionStat(SubProtocolWebSocketHandler.Stats::getTransportErrorSessions))
+                .tag("reason", "transport-error").register(meterRegistry);
+        registerExecutor("inbound", metrics -> metrics.inboundExecutor);
+        registerExecutor("outbound", metrics -> metrics.outboundExecutor);
+        inboundMessages = meterRegistry.counter("tooltrack.websocket.messages", "direction", "inbound");
+        outboundMessages = meterRegistry.counter("tooltrack.websocket.messages", "direction", "outbound");
+    }
+
+    public ChannelInterceptor inboundCounter() {
+        return counting(inboundMessages);
+    }
+
+    public ChannelInterceptor outboundCounter() {
+        return counting(outboundMessages);
+    }
+
+    private static ChannelInterceptor counting(Counter counter) {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                counter.increment();
+                return message;
+            }
+        };
+    }
+
+    //gauges only hold their state object weakly, so they read the executors through this bean
+    private void registerExecutor(String channel, Function<WebSocketMetrics, ThreadPoolTaskExecutor> executor) {
+        Gauge.builder("tooltrack.websocket.executor.active", this, metrics -> executor.apply(metrics).getActiveCount())
+                .tag("channel", channel).register(meterRegistry);
+        Gauge.builder("tooltrack.websocket.executor.queued", this, metrics -> executor.apply(metrics).getQueueSize())
+                .tag("channel", channel).description("Frames waiting for a channel thread").register(meterRegistry);
+    }
+
+    private double sessionStat(ToDoubleFunction<SubProtocolWebSocketHandler.Stats> stat) {
+        SubProtocolWebSocketHandler.Stats stats = brokerStats.getWebSocketSessionStats();
+        return stats != null ? stat.applyAsDouble(stats) : 0;
+    }
+}
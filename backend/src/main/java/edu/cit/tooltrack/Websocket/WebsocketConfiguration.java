@@ -1,25 +1,33 @@
 package edu.cit.tooltrack.Websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.converter.DefaultContentTypeResolver;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
-import java.security.Principal;
 import java.util.List;
 
 import static org.springframework.util.MimeTypeUtils.APPLICATION_JSON;
@@ -29,33 +37,132 @@ import static org.springframework.util.MimeTypeUtils.APPLICATION_JSON;
 @EnableWebSocketMessageBroker
 public class WebsocketConfiguration implements WebSocketMessageBrokerConfigurer {
 
+    //per-user destinations: /user/queue/notifications reaches only the sockets of that user
+    public static final String NOTIFICATIONS_QUEUE = "/queue/notifications";
+    public static final String SIMPLE_BROKER = "simple";
+    public static final String RELAY_BROKER = "relay";
+    //with the relay, nodes share who is connected where and hand over user messages they cannot resolve locally
+    static final String USER_REGISTRY_BROADCAST = "/topic/tooltrack-user-registry";
+    static final String UNRESOLVED_USER_BROADCAST = "/topic/tooltrack-unresolved-user";
+
+    @Autowired
+    private JwtHandshakeInterceptor jwtHandshakeInterceptor;
+    @Autowired
+    private NotificationCatchUpInterceptor notificationCatchUpInterceptor;
+    @Autowired
+    private WebSocketMetrics webSocketMetrics;
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    //simple: in-memory broker, single node only; relay: external STOMP broker (RabbitMQ, ActiveMQ) shared by all nodes
+    @Value("${tooltrack.websocket.broker:simple}")
+    private String brokerType;
+    @Value("${tooltrack.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+    @Value("${tooltrack.websocket.relay.host:localhost}")
+    private String relayHost;
+    @Value("${tooltrack.websocket.relay.port:61613}")
+    private int relayPort;
+    @Value("${tooltrack.websocket.relay.login:guest}")
+    private String relayLogin;
+    @Value("${tooltrack.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+    @Value("${tooltrack.websocket.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    //channel thread pools; when a pool's queue is full further frames are rejected instead of queueing without bound
+    @Value("${tooltrack.websocket.inbound-threads:8}")
+    private int inboundThreads;
+    @Value("${tooltrack.websocket.outbound-threads:8}")
+    private int outboundThreads;
+    @Value("${tooltrack.websocket.executor-queue-capacity:10000}")
+    private int executorQueueCapacity;
+    //per-session limits: a client that cannot take its frames within the time or buffer limit is disconnected
+    @Value("${tooltrack.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+    @Value("${tooltrack.websocket.send-buffer-limit-bytes:524288}")
+    private int sendBufferLimitBytes;
+    @Value("${tooltrack.websocket.message-size-limit-bytes:65536}")
+    private int messageSizeLimitBytes;
+    @Value("${tooltrack.websocket.time-to-first-message-ms:30000}")
+    private int timeToFirstMessageMs;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws/tooltrack")
                 .setHandshakeHandler(new CustomHandshakeHandler())
+                .addInterceptors(jwtHandshakeInterceptor)
                 .setAllowedOrigins("http://localhost:5173", "https://tooltrack-frontend-qybsm.ondigitalocean.app/")
                 .withSockJS();
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic","/user"); //Who sends who: 	Server → Client
+        //Who sends who: 	Server → Client
+        if (RELAY_BROKER.equals(brokerType)) {
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(heartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(heartbeatMs)
+                    .setUserRegistryBroadcast(USER_REGISTRY_BROADCAST)
+                    .setUserDestinationBroadcast(UNRESOLVED_USER_BROADCAST);
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else if (SIMPLE_BROKER.equals(brokerType)) {
+            registry.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        } else {
+            throw new IllegalStateException("Unknown tooltrack.websocket.broker '" + brokerType + "', expected " + SIMPLE_BROKER + " or " + RELAY_BROKER);
+        }
         registry.setApplicationDestinationPrefixes("/app"); //Who sends who: 	Client → Server
         registry.setUserDestinationPrefix("/user");
+        //with several outbound threads, keeps each session's frames (and notification seqs) in order
+        registry.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferLimitBytes)
+                .setMessageSizeLimit(messageSizeLimitBytes)
+                .setTimeToFirstMessage(timeToFirstMessageMs);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(new ChannelInterceptor() {
+        registration.taskExecutor()
+                .corePoolSize(inboundThreads)
+                .maxPoolSize(inboundThreads)
+                .queueCapacity(executorQueueCapacity);
+        registration.interceptors(webSocketMetrics.inboundCounter(), new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
                 StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
-                Principal user = accessor.getUser();
-                if (user != null) {
-                    System.out.println("WebSocket user connected: " + user.getName());
+                //per-user queues are only reachable through /user/..., which resolves to the caller's own sessions
+                if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                        && accessor.getDestination() != null && accessor.getDestination().startsWith("/queue/")) {
+                    throw new MessageDeliveryException("Subscribe to /user" + accessor.getDestination() + " instead");
                 }
                 return message;
             }
-        });
+        }, notificationCatchUpInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundThreads)
+                .maxPoolSize(outboundThreads)
+                .queueCapacity(executorQueueCapacity);
+        registration.interceptors(webSocketMetrics.outboundCounter());
     }
 }
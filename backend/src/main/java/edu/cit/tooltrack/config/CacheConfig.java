@@ -0,0 +1,13 @@
+package edu.cit.tooltrack.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+//Caffeine caches are declared in application.properties (spring.cache.*) so Boot binds their metrics at startup
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String TOOL_ITEMS = "toolItems";
+    public static final String USERS = "users";
+    public static final String USER_DETAILS = "userDetails";
+}
@@ -0,0 +1,77 @@
+package edu.cit.tooltrack.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+
+//Single shared non-blocking S3 client; tooltrack.s3.endpoint points it at an S3-compatible stand-in (e.g. MinIO) for local testing
+@Configuration
+@ConditionalOnProperty(name = "tooltrack.storage.type", havingValue = "s3", matchIfMissing = true)
+public class S3Config {
+
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient(@Value("${tooltrack.s3.region:ap-southeast-1}") String region,
+                                       @Value("${tooltrack.s3.endpoint:}") String endpoint,
+                                       @Value("${tooltrack.s3.max-concurrency:64}") int maxConcurrency,
+                                       @Value("${tooltrack.s3.max-pending-acquires:10000}") int maxPendingAcquires,
+                                       @Value("${tooltrack.s3.connection-acquire-timeout-ms:10000}") long acquireTimeoutMs,
+                                       @Value("${tooltrack.s3.connection-max-idle-ms:60000}") long maxIdleMs) {
+        //maxConcurrency caps open connections (= in-flight requests); extra requests queue for a pooled connection
+        NettyNioAsyncHttpClient.Builder httpClient = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConcurrency)
+                .maxPendingConnectionAcquires(maxPendingAcquires)
+                .connectionAcquisitionTimeout(Duration.ofMillis(acquireTimeoutMs))
+                .connectionMaxIdleTime(Duration.ofMillis(maxIdleMs));
+
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .httpClientBuilder(httpClient)
+                .region(Region.of(region))
+                .credentialsProvider(credentials());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        return builder.build();
+    }
+
+    //signs URLs locally (no network call) with the same credentials, region and endpoint as the client
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner(@Value("${tooltrack.s3.region:ap-southeast-1}") String region,
+                                   @Value("${tooltrack.s3.endpoint:}") String endpoint) {
+        S3Presigner.Builder builder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint))
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+        }
+        return builder.build();
+    }
+
+    //the AWS_ACCESS_KEY pair when set, otherwise the SDK default chain (AWS_ACCESS_KEY_ID, profiles, instance roles)
+    private static AwsCredentialsProvider credentials() {
+        String accessKey = System.getenv("AWS_ACCESS_KEY");
+        if (accessKey == null || accessKey.isBlank()) {
+            return DefaultCredentialsProvider.create();
+        }
+        return StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(
+                        accessKey,
+                        System.getenv("AWS_ACCESS_SECRET_KEY")
+                )
+        );
+    }
+}
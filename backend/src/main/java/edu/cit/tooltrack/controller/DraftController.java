@@ -1,5 +1,6 @@
     package edu.cit.tooltrack.controller;
 
+import edu.cit.tooltrack.dto.CursorPage;
 import edu.cit.tooltrack.dto.NotificationMessageDTO;
 import edu.cit.tooltrack.entity.User;
 import edu.cit.tooltrack.service.*;
@@ -41,9 +42,16 @@ public class DraftController {
     }
 
     @GetMapping("/getAllUsers")
-    public ResponseEntity<List<User>> getUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<User> page;
+        try {
+            page = userService.getUsersPage(cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", e.getMessage()));
+        }
+        return page.ok().body(page.getItems());
     }
 
     @GetMapping("/getTotalUsers")
@@ -94,8 +102,8 @@ public class DraftController {
     })
     @GetMapping("/dbconnect")
     public ResponseEntity<?> testDatabaseConnection() {
-        // Get all users from the database
-        List<User> users = userService.getAllUsers();
+        // Only the first user is needed, so fetch a single-row page
+        List<User> users = userService.getUsersPage(null, 1).getItems();
 
         // Check if there are any users
         if (users.isEmpty()) {
@@ -0,0 +1,76 @@
+package edu.cit.tooltrack.controller;
+
+import edu.cit.tooltrack.service.BlobStore;
+import edu.cit.tooltrack.service.LocalBlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//Serves objects of the local blob store at the URLs it hands out; with S3 those URLs point at the bucket instead
+@RestController
+@RequestMapping("/files")
+@ConditionalOnProperty(name = "tooltrack.storage.type", havingValue = "local")
+public class FileController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    @GetMapping("/**")
+    public void download(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String key = UriUtils.decode(request.getRequestURI().substring(request.getContextPath().length() + "/files/".length()),
+                StandardCharsets.UTF_8);
+        Path path;
+        try {
+            path = localBlobStore.resolve(key);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (!Files.isRegularFile(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long size = Files.size(path);
+        response.setContentType(BlobStore.contentType(path.getFileName().toString()));
+        response.setContentLengthLong(size);
+        //object names are never reused, so clients and proxies can keep them
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            //Tomcat's NIO connector sends the file from the page cache to the socket once this handler returns
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long position = 0; position < size; ) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
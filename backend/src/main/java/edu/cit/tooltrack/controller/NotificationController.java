@@ -1,14 +1,25 @@
 package edu.cit.tooltrack.controller;
 
+import edu.cit.tooltrack.dto.CursorPage;
+import edu.cit.tooltrack.dto.NotificationMessageDTO;
+import edu.cit.tooltrack.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.security.Principal;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
 @RestController
 @RequestMapping("/notification")
 public class NotificationController {
@@ -17,6 +28,26 @@ public class NotificationController {
     private SimpMessagingTemplate messagingTemplate;
 
 
+    @Autowired
+    private NotificationService notificationService;
+
+    //the caller's own notifications, newest first; next page via the X-Next-Cursor header
+    @GetMapping("/inbox")
+    public ResponseEntity<?> getInbox(
+            Principal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<NotificationMessageDTO> page;
+        try {
+            page = notificationService.getInbox(principal.getName(), cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", e.getMessage()));
+        }
+        return page.ok().body(page.getItems());
+    }
+
     @PostMapping("/notify")
     public void greeting(@RequestBody String message) {
         messagingTemplate.convertAndSend("/topic/greetings", message);
@@ -1,14 +1,21 @@
 package edu.cit.tooltrack.controller;
 
+import edu.cit.tooltrack.entity.ToolItems;
+import edu.cit.tooltrack.service.QRLabelSheetService;
 import edu.cit.tooltrack.service.QRcodeService;
+import edu.cit.tooltrack.service.ToolItemService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/qrcode")
@@ -17,6 +24,10 @@ public class QRController {
 
     @Autowired
     private QRcodeService qrcodeService;
+    @Autowired
+    private QRLabelSheetService qrLabelSheetService;
+    @Autowired
+    private ToolItemService toolItemService;
 
     @PostMapping("/create/{toolId}")
     public ResponseEntity<?> createQRAsMultipart(@PathVariable("toolId") String toolId) {
@@ -36,21 +47,46 @@ public class QRController {
 
 
     @PostMapping("/uploadImage")
-    public ResponseEntity<?> uploadImage(
+    public CompletableFuture<ResponseEntity<?>> uploadImage(
             @RequestParam("file") MultipartFile file,
             @RequestParam int toolId) {
 
         String uuidName = java.util.UUID.randomUUID() + "_" + toolId;
-        String imageUrl = qrcodeService.uploadImage(file, uuidName);
-        if (imageUrl != null) {
-            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
-                    "imageUrl", imageUrl,
-                    "qr_code_name", uuidName
-            ));
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
-                    "message", "File Upload Unsuccessful"
-            ));
+        return qrcodeService.uploadImage(file, uuidName).thenApply(imageUrl -> {
+            if (imageUrl != null) {
+                return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                        "imageUrl", imageUrl,
+                        "qr_code_name", uuidName
+                ));
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                        "message", "File Upload Unsuccessful"
+                ));
+            }
+        });
+    }
+
+    //printable PDF label sheet for toolIds, a category or a location; missing QR images are uploaded and saved on the way
+    @PostMapping("/labels")
+    public CompletableFuture<ResponseEntity<?>> createLabelSheet(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) List<Integer> toolIds) {
+        try {
+            List<ToolItems> tools = toolItemService.getToolItemsForLabels(category, location, toolIds);
+            if (tools.isEmpty()) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "No tools found")));
+            }
+            return qrLabelSheetService.prepareLabels(tools).<ResponseEntity<?>>thenApply(labels -> {
+                StreamingResponseBody body = out -> qrLabelSheetService.writePdf(labels, out);
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=qr_labels.pdf")
+                        .body(body);
+            }).exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Failed to generate label sheet")));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("message", e.getMessage())));
         }
     }
 
@@ -8,7 +8,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/returned")
@@ -21,22 +24,24 @@ public class ReturnedController {
     private ImageChunkUploader chunkUploadService;
 
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadChunk(
+    public CompletableFuture<ResponseEntity<?>> uploadChunk(
             @RequestParam String name,
             @RequestParam long size,
             @RequestParam int currentChunkIndex,
             @RequestParam int totalChunks,
+            @RequestParam(required = false) String uploadId,
             HttpServletRequest request
     ) {
         try {
-            String uuidName = java.util.UUID.randomUUID() + "_" + name;
-            String result = chunkUploadService.uploadChunk(uuidName, size, currentChunkIndex, totalChunks, request, "ReturnedTool_Images/");
-            if (result != null) {
-                return ResponseEntity.ok().body(Map.of("imageUrl", result, "image_name", uuidName));
-            }
-            return ResponseEntity.ok().body("{\"message\": \"Chunk uploaded successfully\"}");
+            //every chunk of one file must reuse the name handed out with the first chunk
+            String uuidName = uploadId != null ? Path.of(uploadId).getFileName().toString() : UUID.randomUUID() + "_" + name;
+            return chunkUploadService.uploadChunk(uuidName, size, currentChunkIndex, totalChunks, request, "ReturnedTool_Images/")
+                    .<ResponseEntity<?>>thenApply(result -> result != null
+                            ? ResponseEntity.ok().body(result)
+                            : ResponseEntity.ok().body(Map.of("message", "Chunk uploaded successfully", "uploadId", uuidName)))
+                    .exceptionally(e -> ResponseEntity.internalServerError().body("{\"error\": \"Chunk upload failed: " + e.getMessage() + "\"}"));
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("{\"error\": \"Chunk upload failed: " + e.getMessage() + "\"}");
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().body("{\"error\": \"Chunk upload failed: " + e.getMessage() + "\"}"));
         }
     }
 
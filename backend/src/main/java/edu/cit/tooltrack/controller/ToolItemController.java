@@ -1,5 +1,6 @@
 package edu.cit.tooltrack.controller;
 
+import edu.cit.tooltrack.dto.CursorPage;
 import edu.cit.tooltrack.dto.ToolBorrowDTO;
 import edu.cit.tooltrack.entity.ToolItems;
 import edu.cit.tooltrack.service.ImageChunkUploader;
@@ -12,8 +13,11 @@ import org.springframework.web.bind.annotation.*;
 
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/toolitem")
@@ -28,22 +32,24 @@ public class ToolItemController {
 
     //Uploading the tool image
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadChunk(
+    public CompletableFuture<ResponseEntity<?>> uploadChunk(
             @RequestParam String name,
             @RequestParam long size,
             @RequestParam int currentChunkIndex,
             @RequestParam int totalChunks,
+            @RequestParam(required = false) String uploadId,
             HttpServletRequest request
     ) {
         try {
-            String uuidName = java.util.UUID.randomUUID() + "_" + name;
-            String result = chunkUploadService.uploadChunk(uuidName, size, currentChunkIndex, totalChunks, request, "Tool_Images/");
-            if (result != null) {
-                return ResponseEntity.ok().body(Map.of("imageUrl", result, "image_name", uuidName));
-            }
-            return ResponseEntity.ok().body("{\"message\": \"Chunk uploaded successfully\"}");
+            //every chunk of one file must reuse the name handed out with the first chunk
+            String uuidName = uploadId != null ? Path.of(uploadId).getFileName().toString() : UUID.randomUUID() + "_" + name;
+            return chunkUploadService.uploadChunk(uuidName, size, currentChunkIndex, totalChunks, request, "Tool_Images/")
+                    .<ResponseEntity<?>>thenApply(result -> result != null
+                            ? ResponseEntity.ok().body(result)
+                            : ResponseEntity.ok().body(Map.of("message", "Chunk uploaded successfully", "uploadId", uuidName)))
+                    .exceptionally(e -> ResponseEntity.internalServerError().body("{\"error\": \"Chunk upload failed: " + e.getMessage() + "\"}"));
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("{\"error\": \"Chunk upload failed: " + e.getMessage() + "\"}");
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().body("{\"error\": \"Chunk upload failed: " + e.getMessage() + "\"}"));
         }
     }
 
@@ -85,13 +91,20 @@ public class ToolItemController {
     }
 
     @GetMapping("/getAllTool")
-    public ResponseEntity<?> getAllToolItems(){
-            List<ToolItems> toolItems = toolItemService.getAllItem();
-           if(toolItems.size() > 0){
-               return ResponseEntity.ok(toolItems);
-           }else{
-               return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "No Tool Items Found"));
-           }
+    public ResponseEntity<?> getAllToolItems(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size){
+        CursorPage<ToolItems> page;
+        try {
+            page = toolItemService.getItemsPage(cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", e.getMessage()));
+        }
+        if(!page.isEmpty()){
+            return page.ok().body(page.getItems());
+        }else{
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "No Tool Items Found"));
+        }
     }
 
     //This will be use during submitting the new tool
@@ -121,10 +134,10 @@ public class ToolItemController {
 
         String deleteMessage = toolItemService.deleteToolItem(toolId);
 
-        if(deleteMessage.equals("Tool Item deleted successfully")){
+        if("Tool Item deleted successfully".equals(deleteMessage)){
             return ResponseEntity.ok(Map.of("message", deleteMessage));
         }else{
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", deleteMessage));
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", deleteMessage != null ? deleteMessage : "Tool Item not found"));
         }
     }
 
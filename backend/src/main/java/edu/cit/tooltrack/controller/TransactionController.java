@@ -1,9 +1,11 @@
 package edu.cit.tooltrack.controller;
 
 import edu.cit.tooltrack.dto.BorrowToolDTO;
+import edu.cit.tooltrack.dto.CursorPage;
 import edu.cit.tooltrack.dto.TransactionApproval;
 import edu.cit.tooltrack.dto.TransactionsDTO;
 import edu.cit.tooltrack.entity.ToolTransaction;
+import edu.cit.tooltrack.service.AnalyticsRollupService;
 import edu.cit.tooltrack.service.ToolTransactionService;
 import jakarta.transaction.Transaction;
 import org.apache.coyote.Response;
@@ -23,85 +25,61 @@ public class TransactionController {
     private ToolTransactionService toolTransactionService;
     @Autowired
     private TransactionDefinition transactionDefinition;
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
 
 
     @GetMapping("/getAllTransactions")
-    public ResponseEntity<?> getAllTransactions() {
-        List<TransactionsDTO> transactions = toolTransactionService.getAllTransactions();
-        if (transactions.isEmpty()) {
+    public ResponseEntity<?> getAllTransactions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<TransactionsDTO> page;
+        try {
+            page = toolTransactionService.getTransactionsPage(cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+        if (page.isEmpty()) {
             return ResponseEntity.status(404).body(Map.of("message", "No transactions found"));
         }
-        return ResponseEntity.ok(Map.of("transactions", transactions));
+        return page.ok().body(Map.of("transactions", page.getItems()));
     }
 
     @GetMapping("/getAllPendings")
     public ResponseEntity<?> getAllPendingsTransactions() {
-        List<TransactionsDTO> transactions = toolTransactionService.getAllTransactions();
+        List<TransactionsDTO> transactions = toolTransactionService.getTransactionsByStatus(EnumSet.complementOf(
+                EnumSet.of(ToolTransaction.Status.approved, ToolTransaction.Status.rejected)));
         if (transactions.isEmpty()) {
             return ResponseEntity.status(404).body(Map.of("message", "No transactions found"));
         }
-        transactions.removeIf(transaction ->
-                transaction.getStatus().equals(ToolTransaction.Status.approved) ||
-                transaction.getStatus().equals(ToolTransaction.Status.rejected));
         return ResponseEntity.ok(Map.of("transactions", transactions));
     }
 
     @GetMapping("/getAllProcessed")
     public ResponseEntity<?> getAllProcessedTransactions() {
-        List<TransactionsDTO> transactions = toolTransactionService.getAllTransactions();
+        List<TransactionsDTO> transactions = toolTransactionService.getTransactionsByStatus(
+                EnumSet.complementOf(EnumSet.of(ToolTransaction.Status.pending)));
         if (transactions.isEmpty()) {
             return ResponseEntity.status(404).body(Map.of("message", "No transactions found"));
         }
-        transactions.removeIf(transaction ->
-                transaction.getStatus().equals(ToolTransaction.Status.pending));
         return ResponseEntity.ok(Map.of("transactions", transactions));
     }
 
     @GetMapping("/getAllBorrowed")
     public ResponseEntity<?> getBorrowed(){
-        List<TransactionsDTO> transactions = toolTransactionService.getAllTransactions();
+        List<TransactionsDTO> transactions = toolTransactionService.getBorrowedTransactions();
         if (transactions.isEmpty()) {
             return ResponseEntity.status(404).body(Map.of("message", "No transactions found"));
         }
-        transactions.removeIf(transaction ->
-                transaction.getStatus().equals(ToolTransaction.TransactionType.returned));
         return ResponseEntity.ok(Map.of("transactions", transactions));
     }
 
-        @GetMapping("/getAllPopularTool")
+    @GetMapping("/getAllPopularTool")
     public ResponseEntity<?> getPopularTool() {
-        List<TransactionsDTO> transactions = toolTransactionService.getAllTransactions();
-        if (transactions.isEmpty()) {
+        Map<String, Integer> topPopularTools = toolTransactionService.getTopBorrowedTools(5);
+        if (topPopularTools.isEmpty() && !toolTransactionService.hasTransactions()) {
             return ResponseEntity.status(404).body(Map.of("message", "No transactions found"));
         }
-        HashMap<String, Integer> popularTool = new HashMap<>();
-
-        for (TransactionsDTO transaction : transactions) {
-            if (transaction.getStatus() == ToolTransaction.Status.approved &&
-                    transaction.getTransaction_type() == ToolTransaction.TransactionType.borrow) {
-                popularTool.put(transaction.getTool_name(), popularTool.getOrDefault(transaction.getTool_name(), 0) + 1);
-            }
-        }
-
-        PriorityQueue<Map.Entry<String, Integer>> minHeap =
-                new PriorityQueue<>(Map.Entry.comparingByValue());
-
-        for (Map.Entry<String, Integer> entry : popularTool.entrySet()) {
-            minHeap.offer(entry);
-            if (minHeap.size() > 5) {
-                minHeap.poll(); // Remove the smallest
-            }
-        }
-
-        // Extract, sort in descending order, and convert to Map
-        List<Map.Entry<String, Integer>> result = new ArrayList<>(minHeap);
-        result.sort((a, b) -> b.getValue().compareTo(a.getValue()));
-
-        Map<String, Integer> topPopularTools = new LinkedHashMap<>();
-        for (Map.Entry<String, Integer> entry : result) {
-            topPopularTools.put(entry.getKey(), entry.getValue());
-        }
-
         return ResponseEntity.ok(Map.of("popularTool", topPopularTools));
     }
 
@@ -155,4 +133,20 @@ public class TransactionController {
         return ResponseEntity.ok(Map.of("popularTools", getPopularTools));
     }
 
+    @GetMapping("/getCategoryCounts")
+    public ResponseEntity<?> getCategoryCounts(){
+        Map<String, Long> categoryCounts = toolTransactionService.countByCategory();
+        if(categoryCounts.isEmpty()){
+            return ResponseEntity.status(404).body(Map.of("message", "No transactions found"));
+        }
+        return ResponseEntity.ok(Map.of("categoryCounts", categoryCounts));
+    }
+
+    //Recomputes the dashboard rollups from transaction history
+    @PostMapping("/rebuildAnalytics")
+    public ResponseEntity<?> rebuildAnalytics(){
+        analyticsRollupService.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Analytics rebuilt"));
+    }
+
 }
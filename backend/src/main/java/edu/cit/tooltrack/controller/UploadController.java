@@ -0,0 +1,174 @@
+package edu.cit.tooltrack.controller;
+
+import edu.cit.tooltrack.service.DirectUploadService;
+import edu.cit.tooltrack.service.ImageChunkUploader;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+//Resumable image uploads: init -> PUT chunks (any order, in parallel) -> status to resume -> complete
+//Direct uploads skip the backend: direct -> PUT to the presigned URLs -> direct/complete
+@RestController
+@RequestMapping("/upload")
+public class UploadController {
+
+    @Autowired
+    private ImageChunkUploader chunkUploadService;
+    @Autowired
+    private DirectUploadService directUploadService;
+
+    @PostMapping("/init")
+    public CompletableFuture<ResponseEntity<?>> initUpload(
+            @RequestParam String name,
+            @RequestParam long size,
+            @RequestParam int chunkSize,
+            @RequestParam ImageChunkUploader.UploadTarget type
+    ) {
+        try {
+            return chunkUploadService.initUpload(name, size, chunkSize, type)
+                    .<ResponseEntity<?>>thenApply(session -> ResponseEntity.status(HttpStatus.CREATED).body(session))
+                    .exceptionally(UploadController::error);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error(e));
+        }
+    }
+
+    @PutMapping("/{uploadId}/chunks/{chunkIndex}")
+    public CompletableFuture<ResponseEntity<?>> uploadChunk(
+            @PathVariable String uploadId,
+            @PathVariable int chunkIndex,
+            HttpServletRequest request
+    ) {
+        try {
+            return chunkUploadService.writeChunk(uploadId, chunkIndex, request.getInputStream())
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(UploadController::error);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error(e));
+        }
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> getUploadStatus(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(chunkUploadService.getUploadStatus(uploadId));
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public CompletableFuture<ResponseEntity<?>> completeUpload(
+            @PathVariable String uploadId,
+            @RequestParam(required = false) String sha256
+    ) {
+        try {
+            return chunkUploadService.completeUpload(uploadId, sha256)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(UploadController::error);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error(e));
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public CompletableFuture<ResponseEntity<?>> abortUpload(@PathVariable String uploadId) {
+        try {
+            return chunkUploadService.abortUploadSession(uploadId)
+                    .<ResponseEntity<?>>thenApply(aborted -> ResponseEntity.ok(Map.of("message", "Upload aborted successfully")))
+                    .exceptionally(UploadController::error);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error(e));
+        }
+    }
+
+    @PostMapping("/direct")
+    public CompletableFuture<ResponseEntity<?>> presignUpload(
+            @RequestParam String name,
+            @RequestParam long size,
+            @RequestParam(required = false) String sha256,
+            @RequestParam ImageChunkUploader.UploadTarget type
+    ) {
+        try {
+            return directUploadService.presignUpload(name, size, sha256, type)
+                    .<ResponseEntity<?>>thenApply(upload -> ResponseEntity.status(HttpStatus.CREATED).body(upload))
+                    .exceptionally(UploadController::error);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error(e));
+        }
+    }
+
+    @PostMapping("/direct/complete")
+    public CompletableFuture<ResponseEntity<?>> completeDirectUpload(
+            @RequestParam String image_name,
+            @RequestParam(required = false) String uploadId,
+            @RequestParam ImageChunkUploader.UploadTarget type
+    ) {
+        try {
+            return directUploadService.completeUpload(image_name, uploadId, type)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(UploadController::error);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error(e));
+        }
+    }
+
+    @DeleteMapping("/direct")
+    public CompletableFuture<ResponseEntity<?>> abortDirectUpload(
+            @RequestParam String image_name,
+            @RequestParam String uploadId,
+            @RequestParam ImageChunkUploader.UploadTarget type
+    ) {
+        try {
+            return directUploadService.abortUpload(image_name, uploadId, type)
+                    .<ResponseEntity<?>>thenApply(aborted -> ResponseEntity.ok(Map.of("message", "Upload aborted successfully")))
+                    .exceptionally(UploadController::error);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error(e));
+        }
+    }
+
+    //short-lived read URL for a stored image; the same URL is returned until shortly before it expires
+    @GetMapping("/url")
+    public ResponseEntity<?> getDownloadUrl(
+            @RequestParam String image_name,
+            @RequestParam ImageChunkUploader.UploadTarget type
+    ) {
+        try {
+            return ResponseEntity.ok(directUploadService.presignDownload(image_name, type));
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    private static ResponseEntity<?> error(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof RejectedExecutionException) {
+            //memory for multipart buffers is used up; the chunk can be sent again once other parts have gone to S3
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("message", "Upload failed: " + e.getMessage()));
+        }
+        HttpStatus status;
+        if (e instanceof NoSuchElementException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (e instanceof IllegalArgumentException) {
+            status = HttpStatus.BAD_REQUEST;
+        } else if (e instanceof IllegalStateException) {
+            status = HttpStatus.CONFLICT;
+        } else {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        return ResponseEntity.status(status).body(Map.of("message", "Upload failed: " + e.getMessage()));
+    }
+}
@@ -38,6 +38,8 @@ public class UserAuthController {
 
     @Autowired
     private UserService userService;
+    @Autowired
+    private JwtService jwtService;
     private Map<String, Object> data;
 
     @GetMapping("/checkUser")
@@ -56,14 +58,14 @@ public class UserAuthController {
         if (userService.isUserExist(user.getEmail())) {
             userDetails = userService.getUserData(user.getEmail());
             if(userDetails.getRole().equals("Staff") && userDetails.getIsGoogle()){
-                return ResponseEntity.ok().body(Map.of("token", JwtService.generateToken(userDetails)));
+                return ResponseEntity.ok().body(Map.of("token", jwtService.generateToken(userDetails)));
             }else{
                 //means admin
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Credentials not found"));
             }
         } else {
             userDetails = userService.register(user, "Staff");
-            return ResponseEntity.status(HttpStatus.CREATED).body(JwtService.generateToken(userDetails));
+            return ResponseEntity.status(HttpStatus.CREATED).body(jwtService.generateToken(userDetails));
         }
     }
 
@@ -73,14 +75,14 @@ public class UserAuthController {
         if (userService.isUserExist(user.getEmail())) {
             userDetails = userService.getUserData(user.getEmail());
             if(userDetails.getRole().equals("Admin") && userDetails.getIsGoogle()){
-                return ResponseEntity.ok().body(Map.of("token", JwtService.generateToken(userDetails)));
+                return ResponseEntity.ok().body(Map.of("token", jwtService.generateToken(userDetails)));
             }else{
                 //means its a user
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "User is not an admin"));
             }
         } else {
             userDetails = userService.register(user, "Admin");
-            return ResponseEntity.status(HttpStatus.CREATED).body(JwtService.generateToken(userDetails));
+            return ResponseEntity.status(HttpStatus.CREATED).body(jwtService.generateToken(userDetails));
         }
     }
 
@@ -111,7 +113,7 @@ public class UserAuthController {
                 //means its an admin
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Credentials not found"));
             }
-            return ResponseEntity.ok().body(Map.of("token", JwtService.generateToken(userDetails)));
+            return ResponseEntity.ok().body(Map.of("token", jwtService.generateToken(userDetails)));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid Credentials"));
         }
@@ -122,7 +124,7 @@ public class UserAuthController {
         // Check if user exists
         try {
             UserResponseDTO userDetails = userService.verifyBothUsers(loginRequest);
-            return ResponseEntity.ok().body(Map.of("token", JwtService.generateToken(userDetails)));
+            return ResponseEntity.ok().body(Map.of("token", jwtService.generateToken(userDetails)));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
         }
@@ -137,7 +139,7 @@ public class UserAuthController {
                 //means its a user
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Credentials not found"));
             }
-            return ResponseEntity.ok().body(Map.of("token", JwtService.generateToken(userDetails)));
+            return ResponseEntity.ok().body(Map.of("token", jwtService.generateToken(userDetails)));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid Credentials"));
         }
@@ -147,7 +149,7 @@ public class UserAuthController {
     public ResponseEntity<String> userRegister(@RequestBody User user) {
         try {
             UserResponseDTO userResponse = userService.register(user,"Staff");
-            return ResponseEntity.status(HttpStatus.CREATED).body(JwtService.generateToken(userResponse));
+            return ResponseEntity.status(HttpStatus.CREATED).body(jwtService.generateToken(userResponse));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Registration failed: " + e.getMessage());
         }
@@ -157,7 +159,7 @@ public class UserAuthController {
     public ResponseEntity<String> adminRegister(@RequestBody User user) {
         try {
             UserResponseDTO userResponse = userService.register(user,"Admin");
-            return ResponseEntity.status(HttpStatus.CREATED).body(JwtService.generateToken(userResponse));
+            return ResponseEntity.status(HttpStatus.CREATED).body(jwtService.generateToken(userResponse));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Registration failed: " + e.getMessage());
         }
@@ -1,5 +1,6 @@
 package edu.cit.tooltrack.controller;
 
+import edu.cit.tooltrack.dto.CursorPage;
 import edu.cit.tooltrack.dto.UserResponseDTO;
 import edu.cit.tooltrack.entity.User;
 import edu.cit.tooltrack.service.UserService;
@@ -37,9 +38,16 @@ public class UserController {
                     array = @ArraySchema(schema = @Schema(implementation = User.class))))
     })
     @GetMapping("/getAllUsers")
-    public ResponseEntity<List<User>> getUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<User> page;
+        try {
+            page = userService.getUsersPage(cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", e.getMessage()));
+        }
+        return page.ok().body(page.getItems());
     }
 
     @GetMapping("/getTotalUsers")
@@ -0,0 +1,85 @@
+package edu.cit.tooltrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+//Keyset page: items are ordered by id and next is an opaque cursor to the last id returned (null on the last page).
+//The older list endpoints keep their list-shaped body when the client sends neither cursor nor size, but return at most
+//UNPAGED_LIMIT rows and the X-Next-Cursor header when more remain.
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int UNPAGED_LIMIT = 1000;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private List<T> items;
+    private String next;
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    //200 response carrying the next cursor as a header so list-shaped bodies stay unchanged for existing clients
+    public ResponseEntity.BodyBuilder ok() {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (next != null) {
+            builder.header(NEXT_CURSOR_HEADER, next);
+        }
+        return builder;
+    }
+
+    //size for the list endpoints: unpaged requests are still bounded, paged ones are clamped
+    public static int pageSize(String cursor, Integer size) {
+        if (cursor == null && size == null) {
+            return UNPAGED_LIMIT;
+        }
+        return clampSize(size);
+    }
+
+    public static int clampSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    public static String encode(int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    //null or blank cursor means the first page
+    public static int decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return Integer.parseInt(raw.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    //rows should be fetched with size + 1 so we know whether another page exists without a COUNT
+    public static <T> CursorPage<T> of(List<T> rows, int size, ToIntFunction<T> idOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, encode(idOf.applyAsInt(items.get(size - 1))));
+    }
+}
@@ -0,0 +1,21 @@
+package edu.cit.tooltrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+//A direct-to-S3 upload: the client PUTs part i (1-based) of partSize bytes to partUrls[i - 1], then calls complete.
+//When identical bytes are already stored, stored holds the upload result and there is nothing to send.
+@Getter
+@Setter
+@AllArgsConstructor
+public class DirectUploadDTO {
+    private String image_name;
+    private String uploadId;
+    private long partSize;
+    private List<PresignedUrlDTO> partUrls;
+    private Map<String, String> stored;
+}
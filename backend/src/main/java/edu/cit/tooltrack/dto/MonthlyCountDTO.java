@@ -0,0 +1,14 @@
+package edu.cit.tooltrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class MonthlyCountDTO {
+    private Integer year;
+    private Integer month;
+    private Long count;
+}
@@ -18,4 +18,6 @@ public class NotificationMessageDTO {
     private Timestamp borrow_date;
     private Timestamp due_date;
     private String user_email;
+    //the recipient's inbox sequence; null when the notification could not be stored
+    private Integer seq;
 }
@@ -0,0 +1,19 @@
+package edu.cit.tooltrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.Map;
+
+//A short-lived signed S3 request: clients send exactly these headers, and request a new URL after expiresAt
+@Getter
+@Setter
+@AllArgsConstructor
+public class PresignedUrlDTO {
+    private String url;
+    private String method;
+    private Map<String, String> headers;
+    private Instant expiresAt;
+}
@@ -22,6 +22,7 @@ public class ToolBorrowDTO {
         private String description;
         private Timestamp date_acquired;
         private String image_url;
+        private String image_thumbnail_url;
         private Timestamp created_at;
         private Timestamp updated_at;
 
@@ -34,6 +35,7 @@ public class ToolBorrowDTO {
                 this.description = toolItem.getDescription();
                 this.date_acquired = toolItem.getDate_acquired();
                 this.image_url = toolItem.getImage_url();;
+                this.image_thumbnail_url = toolItem.getImage_thumbnail_url();
                 this.created_at = toolItem.getCreated_at();
                 this.updated_at = toolItem.getUpdated_at();
         }
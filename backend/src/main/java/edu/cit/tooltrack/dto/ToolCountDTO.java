@@ -0,0 +1,13 @@
+package edu.cit.tooltrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ToolCountDTO {
+    private String tool_name;
+    private Long count;
+}
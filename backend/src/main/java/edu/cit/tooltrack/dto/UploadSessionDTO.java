@@ -0,0 +1,21 @@
+package edu.cit.tooltrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+//State of a resumable upload: clients re-send the chunk indexes listed in missingChunks
+@Getter
+@Setter
+@AllArgsConstructor
+public class UploadSessionDTO {
+    private String uploadId;
+    private String image_name;
+    private long size;
+    private int chunkSize;
+    private int totalChunks;
+    private List<Integer> receivedChunks;
+    private List<Integer> missingChunks;
+}
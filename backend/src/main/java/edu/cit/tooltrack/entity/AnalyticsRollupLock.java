@@ -0,0 +1,19 @@
+package edu.cit.tooltrack.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+//Single row that serialises rollup rebuilds against counter increments: increments lock it shared, rebuilds exclusively
+@Getter
+@Setter
+@Entity
+@Table(name = "analytics_rollup_locks")
+public class AnalyticsRollupLock {
+    public static final int ID = 1;
+
+    @Id
+    private int id;
+}
@@ -0,0 +1,19 @@
+package edu.cit.tooltrack.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+//Per-category borrow counters, maintained by AnalyticsRollupService alongside tool_transactions writes
+@Getter
+@Setter
+@Entity
+@Table(name = "borrow_category_rollups")
+public class BorrowCategoryRollup {
+
+    @Id
+    private String category;
+
+    private long requested_count;
+    private long approved_count;
+}
@@ -0,0 +1,21 @@
+package edu.cit.tooltrack.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Date;
+
+//Per-day borrow counters, maintained by AnalyticsRollupService alongside tool_transactions writes
+@Getter
+@Setter
+@Entity
+@Table(name = "borrow_daily_rollups")
+public class BorrowDailyRollup {
+
+    @Id
+    private Date bucket_date;
+
+    private long requested_count;
+    private long approved_count;
+}
@@ -0,0 +1,19 @@
+package edu.cit.tooltrack.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+//Per-tool borrow counters, maintained by AnalyticsRollupService alongside tool_transactions writes
+@Getter
+@Setter
+@Entity
+@Table(name = "borrow_tool_rollups")
+public class BorrowToolRollup {
+
+    @Id
+    private int tool_id;
+
+    private long requested_count;
+    private long approved_count;
+}
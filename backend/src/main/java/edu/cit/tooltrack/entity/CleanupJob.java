@@ -0,0 +1,51 @@
+package edu.cit.tooltrack.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+//Outbox row for deferred cleanup; written in the same transaction as the change that orphaned the object
+@Getter
+@Setter
+@Entity
+@Table(name = "cleanup_jobs", indexes = {
+        @Index(name = "idx_cleanup_jobs_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class CleanupJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long job_id;
+
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    //S3 object key for S3_DELETE, local path for TEMP_FILE_DELETE
+    @Column(length = 1024)
+    private String target;
+
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    private int attempts;
+    private Timestamp next_attempt_at;
+    private String last_error;
+    private Timestamp created_at;
+
+    @PrePersist
+    protected void onCreate() {
+        this.created_at = new Timestamp(System.currentTimeMillis());
+        if (this.next_attempt_at == null) {
+            this.next_attempt_at = this.created_at;
+        }
+    }
+
+    public enum Type {
+        S3_DELETE, TEMP_FILE_DELETE
+    }
+
+    public enum Status {
+        PENDING, FAILED
+    }
+}
@@ -0,0 +1,28 @@
+package edu.cit.tooltrack.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+//A multipart direct upload handed out by /upload/direct; complete checks what S3 received against the declared size
+@Getter
+@Setter
+@Entity
+@Table(name = "direct_uploads", indexes = @Index(name = "idx_direct_uploads_created", columnList = "created_at"))
+public class DirectUpload {
+    //the S3 multipart upload id
+    @Id
+    private String upload_id;
+
+    private String folder;
+    private String image_name;
+    private long size;
+    private Timestamp created_at;
+
+    @PrePersist
+    protected void onCreate() {
+        this.created_at = new Timestamp(System.currentTimeMillis());
+    }
+}
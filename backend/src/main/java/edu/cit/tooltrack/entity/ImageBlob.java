@@ -0,0 +1,33 @@
+package edu.cit.tooltrack.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+//One stored upload per (folder, content hash); ref_count counts the tools and return records that hold it
+@Getter
+@Setter
+@Entity
+@Table(name = "image_blobs",
+        uniqueConstraints = @UniqueConstraint(name = "uk_image_blobs_content", columnNames = {"folder", "sha256"}),
+        indexes = @Index(name = "idx_image_blobs_object", columnList = "folder, object_name"))
+public class ImageBlob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long blob_id;
+
+    private String folder;
+    @Column(length = 64)
+    private String sha256;
+    //name within the folder: <sha256><ext>, or the upload name for multipart uploads whose key is fixed up front
+    private String object_name;
+    private String image_url;
+    private String thumbnail_url;
+    private String medium_url;
+    private int ref_count;
+    private Timestamp created_at;
+    //last time an upload resolved to this object; unattached objects expire a TTL after it
+    private Timestamp uploaded_at;
+}
@@ -0,0 +1,19 @@
+package edu.cit.tooltrack.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+//Last notification seq handed out per user; bumping the row locks it until commit, so a user's seqs never repeat or reorder
+@Getter
+@Setter
+@Entity
+@Table(name = "notification_sequences")
+public class NotificationSequence {
+    @Id
+    private int user_id;
+
+    private int last_seq;
+}
@@ -6,10 +6,15 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.sql.Timestamp;
+
+//A user's inbox entry; seq increases by one per notification for that user, so clients can ask for everything after the last one they saw
 @Getter
 @Setter
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications",
+        uniqueConstraints = @UniqueConstraint(name = "uk_notifications_user_seq", columnNames = {"fk_notifications_user", "seq"}),
+        indexes = @Index(name = "idx_notifications_created", columnList = "created_at"))
 public class Notifications {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,5 +28,9 @@ public class Notifications {
     private String title;
     private String message;
 
-
+    private int seq;
+    private String status;
+    private Timestamp borrow_date;
+    private Timestamp due_date;
+    private Timestamp created_at;
 }
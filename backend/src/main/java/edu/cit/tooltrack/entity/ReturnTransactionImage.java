@@ -16,6 +16,9 @@ public class ReturnTransactionImage {
     private int return_id;
     private String image_url;
     private String image_name;
+    //downscaled, metadata-free copies for list views; null when the upload could not be processed
+    private String image_thumbnail_url;
+    private String image_medium_url;
 
 //    @ManyToOne
 //    @JoinColumn(name = "fk_user")
@@ -1,6 +1,7 @@
 package edu.cit.tooltrack.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -21,7 +22,8 @@ public class ToolItems {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int tool_id;
 
-    @JsonManagedReference("toolTransaction_toolId")
+    //not serialized: tools are cached detached and this lazy history would be loaded per tool on every list response
+    @JsonIgnore
     @OneToMany(
             mappedBy = "tool_id",
             cascade = CascadeType.ALL,
@@ -45,6 +47,9 @@ public class ToolItems {
     private Timestamp date_acquired;
     private String image_url;
     private String  image_name;
+    //downscaled, metadata-free copies for list views; null when the upload could not be processed
+    private String image_thumbnail_url;
+    private String image_medium_url;
     private Timestamp created_at;
     private Timestamp updated_at;
     private Boolean is_active;
@@ -1,6 +1,7 @@
 package edu.cit.tooltrack.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -14,7 +15,9 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name="tool_transactions")
+@Table(name="tool_transactions", indexes = {
+        @Index(name = "idx_tool_transactions_status_type_borrow", columnList = "status, transaction_type, borrow_date")
+})
 public class ToolTransaction {
 
     @Id
@@ -25,13 +28,13 @@ public class ToolTransaction {
     @OneToMany(mappedBy = "toolTransaction")
     private List<ReturnTransactionImage> returnImage;
 
-    @JsonBackReference("toolTransaction_toolId")
-    @ManyToOne
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "fk_tool_id")
     private ToolItems tool_id;
 
     @JsonBackReference("toolTransaction")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "fk_tool_transactions_user")
     private User user_id;
 
@@ -0,0 +1,28 @@
+package edu.cit.tooltrack.repository;
+
+import edu.cit.tooltrack.entity.AnalyticsRollupLock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AnalyticsRollupLockRepository extends JpaRepository<AnalyticsRollupLock, Integer> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO analytics_rollup_locks (id) VALUES (:id)", nativeQuery = true)
+    void insertIfMissing(@Param("id") int id);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT l FROM AnalyticsRollupLock l WHERE l.id = :id")
+    Optional<AnalyticsRollupLock> lockShared(@Param("id") int id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM AnalyticsRollupLock l WHERE l.id = :id")
+    Optional<AnalyticsRollupLock> lockExclusive(@Param("id") int id);
+}
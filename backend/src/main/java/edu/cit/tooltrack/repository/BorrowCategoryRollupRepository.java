@@ -0,0 +1,49 @@
+package edu.cit.tooltrack.repository;
+
+import edu.cit.tooltrack.entity.BorrowCategoryRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BorrowCategoryRollupRepository extends JpaRepository<BorrowCategoryRollup, String> {
+
+    // Bucket used for tools without a category; must match the literal in rebuildFromTransactions
+    String UNCATEGORIZED = "Uncategorized";
+
+    @Modifying
+    @Query(value = "INSERT INTO borrow_category_rollups (category, requested_count, approved_count) " +
+            "VALUES (:category, :requested, :approved) " +
+            "ON DUPLICATE KEY UPDATE requested_count = requested_count + :requested, approved_count = approved_count + :approved",
+            nativeQuery = true)
+    void increment(@Param("category") String category, @Param("requested") long requested, @Param("approved") long approved);
+
+    // Category read from tool_items at write time rather than from a possibly cached entity, so a count
+    // recorded after a category edit commits always lands on the new category
+    @Modifying
+    @Query(value = "INSERT INTO borrow_category_rollups (category, requested_count, approved_count) " +
+            "SELECT COALESCE(ti.category, 'Uncategorized'), :requested, :approved FROM tool_items ti WHERE ti.tool_id = :toolId " +
+            "ON DUPLICATE KEY UPDATE requested_count = requested_count + :requested, approved_count = approved_count + :approved",
+            nativeQuery = true)
+    void incrementForTool(@Param("toolId") int toolId, @Param("requested") long requested, @Param("approved") long approved);
+
+    @Modifying
+    @Query(value = "DELETE FROM borrow_category_rollups", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO borrow_category_rollups (category, requested_count, approved_count) " +
+            "SELECT COALESCE(ti.category, 'Uncategorized'), COUNT(*), " +
+            "SUM(CASE WHEN tt.status = :approvedStatus AND tt.transaction_type = :borrowType THEN 1 ELSE 0 END) " +
+            "FROM tool_transactions tt JOIN tool_items ti ON ti.tool_id = tt.fk_tool_id " +
+            "GROUP BY COALESCE(ti.category, 'Uncategorized')",
+            nativeQuery = true)
+    void rebuildFromTransactions(@Param("approvedStatus") int approvedStatus, @Param("borrowType") int borrowType);
+
+    @Query("SELECT r FROM BorrowCategoryRollup r ORDER BY r.requested_count DESC, r.category")
+    List<BorrowCategoryRollup> findAllOrderByRequested();
+}
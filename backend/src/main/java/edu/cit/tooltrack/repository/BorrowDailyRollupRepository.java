@@ -0,0 +1,52 @@
+package edu.cit.tooltrack.repository;
+
+import edu.cit.tooltrack.dto.MonthlyCountDTO;
+import edu.cit.tooltrack.entity.BorrowDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.List;
+
+@Repository
+public interface BorrowDailyRollupRepository extends JpaRepository<BorrowDailyRollup, Date> {
+
+    @Modifying
+    @Query(value = "INSERT INTO borrow_daily_rollups (bucket_date, requested_count, approved_count) " +
+            "VALUES (:day, :requested, :approved) " +
+            "ON DUPLICATE KEY UPDATE requested_count = requested_count + :requested, approved_count = approved_count + :approved",
+            nativeQuery = true)
+    void increment(@Param("day") Date day, @Param("requested") long requested, @Param("approved") long approved);
+
+    @Modifying
+    @Query(value = "DELETE FROM borrow_daily_rollups", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO borrow_daily_rollups (bucket_date, requested_count, approved_count) " +
+            "SELECT CAST(borrow_date AS DATE), COUNT(*), " +
+            "SUM(CASE WHEN status = :approvedStatus AND transaction_type = :borrowType THEN 1 ELSE 0 END) " +
+            "FROM tool_transactions WHERE borrow_date IS NOT NULL GROUP BY CAST(borrow_date AS DATE)",
+            nativeQuery = true)
+    void rebuildFromTransactions(@Param("approvedStatus") int approvedStatus, @Param("borrowType") int borrowType);
+
+    @Query("SELECT new edu.cit.tooltrack.dto.MonthlyCountDTO(YEAR(r.bucket_date), MONTH(r.bucket_date), SUM(r.requested_count)) " +
+            "FROM BorrowDailyRollup r " +
+            "WHERE r.bucket_date >= :from " +
+            "GROUP BY YEAR(r.bucket_date), MONTH(r.bucket_date)")
+    List<MonthlyCountDTO> sumByMonthSince(@Param("from") Date from);
+
+    @Query("SELECT new edu.cit.tooltrack.dto.MonthlyCountDTO(YEAR(r.bucket_date), MONTH(r.bucket_date), SUM(r.requested_count)) " +
+            "FROM BorrowDailyRollup r " +
+            "WHERE r.bucket_date >= :from AND r.bucket_date < :to " +
+            "GROUP BY YEAR(r.bucket_date), MONTH(r.bucket_date)")
+    List<MonthlyCountDTO> sumByMonthBetween(@Param("from") Date from, @Param("to") Date to);
+
+    @Query("SELECT new edu.cit.tooltrack.dto.MonthlyCountDTO(YEAR(r.bucket_date), MONTH(r.bucket_date), SUM(r.requested_count)) " +
+            "FROM BorrowDailyRollup r " +
+            "GROUP BY YEAR(r.bucket_date), MONTH(r.bucket_date)")
+    List<MonthlyCountDTO> sumByMonth();
+}
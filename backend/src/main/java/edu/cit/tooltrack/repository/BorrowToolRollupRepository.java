@@ -0,0 +1,57 @@
+package edu.cit.tooltrack.repository;
+
+import edu.cit.tooltrack.dto.ToolCountDTO;
+import edu.cit.tooltrack.entity.BorrowToolRollup;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BorrowToolRollupRepository extends JpaRepository<BorrowToolRollup, Integer> {
+
+    @Modifying
+    @Query(value = "INSERT INTO borrow_tool_rollups (tool_id, requested_count, approved_count) " +
+            "VALUES (:toolId, :requested, :approved) " +
+            "ON DUPLICATE KEY UPDATE requested_count = requested_count + :requested, approved_count = approved_count + :approved",
+            nativeQuery = true)
+    void increment(@Param("toolId") int toolId, @Param("requested") long requested, @Param("approved") long approved);
+
+    // Locking read, so the counts are the latest committed ones rather than the transaction's snapshot
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM BorrowToolRollup r WHERE r.tool_id = :toolId")
+    Optional<BorrowToolRollup> findForUpdate(@Param("toolId") int toolId);
+
+    @Modifying
+    @Query(value = "DELETE FROM borrow_tool_rollups", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO borrow_tool_rollups (tool_id, requested_count, approved_count) " +
+            "SELECT fk_tool_id, COUNT(*), " +
+            "SUM(CASE WHEN status = :approvedStatus AND transaction_type = :borrowType THEN 1 ELSE 0 END) " +
+            "FROM tool_transactions WHERE fk_tool_id IS NOT NULL GROUP BY fk_tool_id",
+            nativeQuery = true)
+    void rebuildFromTransactions(@Param("approvedStatus") int approvedStatus, @Param("borrowType") int borrowType);
+
+    // Rollups are keyed by tool_id; joining tool_items groups by name and drops deleted tools
+    @Query("SELECT new edu.cit.tooltrack.dto.ToolCountDTO(i.name, SUM(r.requested_count)) " +
+            "FROM BorrowToolRollup r JOIN ToolItems i ON i.tool_id = r.tool_id " +
+            "GROUP BY i.name " +
+            "ORDER BY SUM(r.requested_count) DESC, i.name")
+    List<ToolCountDTO> sumRequestedByToolName();
+
+    @Query("SELECT new edu.cit.tooltrack.dto.ToolCountDTO(i.name, SUM(r.approved_count)) " +
+            "FROM BorrowToolRollup r JOIN ToolItems i ON i.tool_id = r.tool_id " +
+            "WHERE r.approved_count > 0 " +
+            "GROUP BY i.name " +
+            "ORDER BY SUM(r.approved_count) DESC, i.name")
+    List<ToolCountDTO> sumApprovedByToolName(Limit limit);
+}
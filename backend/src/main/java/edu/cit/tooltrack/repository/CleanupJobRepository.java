@@ -0,0 +1,35 @@
+package edu.cit.tooltrack.repository;
+
+import edu.cit.tooltrack.entity.CleanupJob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public interface CleanupJobRepository extends JpaRepository<CleanupJob, Long> {
+
+    //FOR UPDATE SKIP LOCKED (lock timeout -2): concurrent workers and instances claim disjoint batches
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT j FROM CleanupJob j WHERE j.status = :status AND j.next_attempt_at <= :now ORDER BY j.job_id")
+    List<CleanupJob> findDueForUpdate(@Param("status") CleanupJob.Status status, @Param("now") Timestamp now, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM CleanupJob j WHERE j.type = :type AND j.target = :target AND j.status = edu.cit.tooltrack.entity.CleanupJob.Status.PENDING")
+    int deletePending(@Param("type") CleanupJob.Type type, @Param("target") String target);
+
+    long countByStatus(CleanupJob.Status status);
+
+    @Query("SELECT MIN(j.created_at) FROM CleanupJob j WHERE j.status = edu.cit.tooltrack.entity.CleanupJob.Status.PENDING AND j.next_attempt_at <= :now")
+    Timestamp findOldestDueCreatedAt(@Param("now") Timestamp now);
+}
@@ -0,0 +1,17 @@
+package edu.cit.tooltrack.repository;
+
+import edu.cit.tooltrack.entity.DirectUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public interface DirectUploadRepository extends JpaRepository<DirectUpload, String> {
+
+    @Query(value = "SELECT * FROM direct_uploads WHERE created_at < :cutoff", nativeQuery = true)
+    List<DirectUpload> findCreatedBefore(@Param("cutoff") Timestamp cutoff);
+}
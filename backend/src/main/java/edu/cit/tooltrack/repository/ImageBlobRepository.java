@@ -0,0 +1,51 @@
+package edu.cit.tooltrack.repository;
+
+import edu.cit.tooltrack.entity.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, Long> {
+
+    @Query(value = "SELECT * FROM image_blobs WHERE folder = :folder AND sha256 = :sha256", nativeQuery = true)
+    Optional<ImageBlob> findByContent(@Param("folder") String folder, @Param("sha256") String sha256);
+
+    @Query(value = "SELECT * FROM image_blobs WHERE folder = :folder AND object_name = :objectName", nativeQuery = true)
+    Optional<ImageBlob> findByObjectName(@Param("folder") String folder, @Param("objectName") String objectName);
+
+    //uploads take no reference; a concurrent or repeated upload of the same bytes only refreshes uploaded_at
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO image_blobs (folder, sha256, object_name, image_url, thumbnail_url, medium_url, ref_count, created_at, uploaded_at) " +
+            "VALUES (:folder, :sha256, :objectName, :imageUrl, :thumbnailUrl, :mediumUrl, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE uploaded_at = CURRENT_TIMESTAMP",
+            nativeQuery = true)
+    void insertOrTouch(@Param("folder") String folder, @Param("sha256") String sha256, @Param("objectName") String objectName,
+                       @Param("imageUrl") String imageUrl, @Param("thumbnailUrl") String thumbnailUrl, @Param("mediumUrl") String mediumUrl);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE image_blobs SET uploaded_at = CURRENT_TIMESTAMP WHERE folder = :folder AND sha256 = :sha256", nativeQuery = true)
+    int touch(@Param("folder") String folder, @Param("sha256") String sha256);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE image_blobs SET ref_count = ref_count + 1 WHERE folder = :folder AND object_name = :objectName", nativeQuery = true)
+    int attach(@Param("folder") String folder, @Param("objectName") String objectName);
+
+    @Query(value = "SELECT * FROM image_blobs WHERE ref_count <= 0 AND uploaded_at < :cutoff", nativeQuery = true)
+    List<ImageBlob> findUnattached(@Param("cutoff") Timestamp cutoff);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE image_blobs SET ref_count = ref_count - 1 WHERE blob_id = :blobId", nativeQuery = true)
+    int decrementRefCount(@Param("blobId") long blobId);
+
+    //content that an upload resolved to after the cutoff stays: that client may still attach it
+    @Modifying
+    @Query(value = "DELETE FROM image_blobs WHERE blob_id = :blobId AND ref_count <= 0 AND (uploaded_at IS NULL OR uploaded_at < :cutoff)", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("blobId") long blobId, @Param("cutoff") Timestamp cutoff);
+}
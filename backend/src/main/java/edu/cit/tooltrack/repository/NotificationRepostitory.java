@@ -1,9 +1,35 @@
 package edu.cit.tooltrack.repository;
 
 import edu.cit.tooltrack.entity.Notifications;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.List;
+
 @Repository
 public interface NotificationRepostitory extends JpaRepository<Notifications, Integer> {
+
+    //newest first; beforeSeq = 0 means the first page
+    @Query("SELECT n FROM Notifications n WHERE n.user_id.user_id = :userId AND (:beforeSeq = 0 OR n.seq < :beforeSeq) ORDER BY n.seq DESC")
+    List<Notifications> findInboxPage(@Param("userId") int userId, @Param("beforeSeq") int beforeSeq, Limit limit);
+
+    //oldest first, for catching a reconnecting client up
+    @Query("SELECT n FROM Notifications n WHERE n.user_id.user_id = :userId AND n.seq > :afterSeq ORDER BY n.seq")
+    List<Notifications> findAfterSeq(@Param("userId") int userId, @Param("afterSeq") int afterSeq, Limit limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE created_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") Timestamp cutoff, @Param("limit") int limit);
+
+    //keeps each user's newest `keep` notifications; seqs are dense, so that is everything above last_seq - keep
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE seq <= " +
+            "(SELECT s.last_seq FROM notification_sequences s WHERE s.user_id = notifications.fk_notifications_user) - :keep LIMIT :limit",
+            nativeQuery = true)
+    int deleteBeyondPerUserLimit(@Param("keep") int keep, @Param("limit") int limit);
 }
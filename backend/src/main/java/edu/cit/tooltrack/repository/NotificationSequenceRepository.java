@@ -0,0 +1,21 @@
+package edu.cit.tooltrack.repository;
+
+import edu.cit.tooltrack.entity.NotificationSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationSequenceRepository extends JpaRepository<NotificationSequence, Integer> {
+
+    @Modifying
+    @Query(value = "INSERT INTO notification_sequences (user_id, last_seq) VALUES (:userId, 1) " +
+            "ON DUPLICATE KEY UPDATE last_seq = last_seq + 1",
+            nativeQuery = true)
+    void increment(@Param("userId") int userId);
+
+    @Query(value = "SELECT last_seq FROM notification_sequences WHERE user_id = :userId", nativeQuery = true)
+    int findLastSeq(@Param("userId") int userId);
+}
@@ -1,6 +1,7 @@
 package edu.cit.tooltrack.repository;
 
 import edu.cit.tooltrack.entity.ToolItems;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -22,4 +23,10 @@ public interface ToolItemRepository extends JpaRepository<ToolItems, Integer> {
 
     @Query(value = "SELECT * FROM tool_items WHERE category = :category", nativeQuery = true)
     List<ToolItems> findByCategory(@Param("category") String category);
+
+    @Query(value = "SELECT * FROM tool_items WHERE location = :location", nativeQuery = true)
+    List<ToolItems> findByLocation(@Param("location") String location);
+
+    @Query("SELECT t FROM ToolItems t WHERE t.tool_id > :afterId ORDER BY t.tool_id")
+    List<ToolItems> findPageAfter(@Param("afterId") int afterId, Limit limit);
 }
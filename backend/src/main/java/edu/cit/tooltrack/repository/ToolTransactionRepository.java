@@ -1,6 +1,8 @@
 package edu.cit.tooltrack.repository;
 
+import edu.cit.tooltrack.dto.TransactionsDTO;
 import edu.cit.tooltrack.entity.ToolTransaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,26 +10,46 @@ import org.springframework.stereotype.Repository;
 
 import javax.tools.Tool;
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
 public interface ToolTransactionRepository extends JpaRepository<ToolTransaction, Integer> {
 
-
-    @Query(value = "SELECT borrow_date FROM tool_transactions WHERE borrow_date >= DATE_SUB(CURRENT_TIMESTAMP, INTERVAL 6 MONTH)", nativeQuery = true)
-    List<Timestamp> getLastSixMonths();
-
-    @Query(value = "SELECT borrow_date FROM tool_transactions WHERE YEAR(borrow_date) = :year", nativeQuery = true)
-    List<Timestamp> getLastYear(@Param("year") int year);
-
-    @Query(value = "SELECT borrow_date FROM tool_transactions", nativeQuery = true)
-    List<Timestamp> getAllYear();
-
-    @Query(value = "SELECT * FROM tool_transactions tt JOIN users u ON tt.fk_tool_transactions_user = u.user_id WHERE u.email = :email", nativeQuery = true)
-    List<ToolTransaction> findTransactionsByEmail(@Param("email") String email);
-
-    @Query(value = "SELECT tt.* FROM tool_transactions tt JOIN users u ON tt.fk_tool_transactions_user = u.user_id WHERE u.email = :email", nativeQuery = true)
-    List<ToolTransaction> getTransactionsByEmail(@Param("email") String email);
+    // Constructor projection joined to users and tool_items, so N transactions are read in one round trip
+    String TRANSACTION_DTO_SELECT = "SELECT new edu.cit.tooltrack.dto.TransactionsDTO(" +
+            "t.transaction_id, u.user_id, u.first_name, u.last_name, u.email, " +
+            "i.tool_id, i.name, t.borrow_date, t.due_date, t.return_date, t.transaction_type, t.status) " +
+            "FROM ToolTransaction t JOIN t.user_id u JOIN t.tool_id i ";
+
+    // Fetch-joined entity read for write paths that need both the tool and the borrower
+    @Query("SELECT t FROM ToolTransaction t JOIN FETCH t.tool_id JOIN FETCH t.user_id WHERE t.transaction_id = :id")
+    Optional<ToolTransaction> findWithToolAndUserById(@Param("id") int id);
+
+    @Query(TRANSACTION_DTO_SELECT + "ORDER BY t.transaction_id")
+    List<TransactionsDTO> findAllTransactionDTOs();
+
+    @Query(TRANSACTION_DTO_SELECT + "WHERE u.email = :email ORDER BY t.transaction_id")
+    List<TransactionsDTO> findTransactionDTOsByEmail(@Param("email") String email);
+
+    // Filtered list reads project straight into the DTO so no entity graph is built,
+    // and hit idx_tool_transactions_status_type_borrow on (status, transaction_type, borrow_date)
+    @Query(TRANSACTION_DTO_SELECT +
+            "WHERE t.status IN :statuses " +
+            "ORDER BY t.borrow_date")
+    List<TransactionsDTO> findAllByStatusIn(@Param("statuses") Collection<ToolTransaction.Status> statuses);
+
+    @Query(TRANSACTION_DTO_SELECT +
+            "WHERE t.transaction_type IS NULL OR t.transaction_type <> :excludedType " +
+            "ORDER BY t.borrow_date")
+    List<TransactionsDTO> findAllByTransactionTypeNot(@Param("excludedType") ToolTransaction.TransactionType excludedType);
+
+    // Keyset page: seeks on the primary key instead of an OFFSET scan
+    @Query(TRANSACTION_DTO_SELECT +
+            "WHERE t.transaction_id > :afterId " +
+            "ORDER BY t.transaction_id")
+    List<TransactionsDTO> findPageAfter(@Param("afterId") int afterId, Limit limit);
 
 } 
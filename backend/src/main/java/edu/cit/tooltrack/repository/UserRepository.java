@@ -1,11 +1,22 @@
 package edu.cit.tooltrack.repository;
 
 import edu.cit.tooltrack.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
     User findByEmail(String email);
     String deleteByEmail(String email);
+
+    @Query("SELECT u.is_active FROM User u WHERE u.email = :email")
+    Integer findActiveFlagByEmail(@Param("email") String email);
+
+    @Query("SELECT u FROM User u WHERE u.user_id > :afterId ORDER BY u.user_id")
+    List<User> findPageAfter(@Param("afterId") int afterId, Limit limit);
 }
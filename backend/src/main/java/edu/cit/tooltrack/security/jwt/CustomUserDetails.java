@@ -19,7 +19,8 @@ public class CustomUserDetails implements UserDetails{
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singleton(new SimpleGrantedAuthority("Staff"));
+        //same authority as the role claim in the JWT
+        return Collections.singleton(new SimpleGrantedAuthority(user.getRole() != null ? user.getRole() : "Staff"));
     }
 
     @Override
@@ -1,7 +1,9 @@
 package edu.cit.tooltrack.security.jwt;
 
+import edu.cit.tooltrack.config.CacheConfig;
 import edu.cit.tooltrack.entity.User;
 import edu.cit.tooltrack.repository.UserRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -17,6 +19,7 @@ public class CustomUserDetailsService implements UserDetailsService{
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.USER_DETAILS, key = "#username")
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = user_repo.findByEmail(username);
 
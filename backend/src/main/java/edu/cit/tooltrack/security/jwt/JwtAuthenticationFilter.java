@@ -1,10 +1,13 @@
 package edu.cit.tooltrack.security.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -22,13 +25,20 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserStatusCache userStatusCache;
+    private final boolean stateless;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService,
+                                   UserStatusCache userStatusCache,
+                                   @Value("${tooltrack.security.jwt.stateless:false}") boolean stateless) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.userStatusCache = userStatusCache;
+        this.stateless = stateless;
     }
 
     @Override
@@ -42,41 +52,60 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String jwt = authHeader.substring(7);
-        final String userName = jwtService.extractUserName(jwt);
-        final String role = jwtService.extractRole(jwt);
+        final Claims claims;
+        try {
+            //signature and expiry are checked here, once per request
+            claims = jwtService.parseClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            filterChain.doFilter(request,response);
+            return;
+        }
 
+        final String userName = claims.getSubject();
         Authentication authentication
                 = SecurityContextHolder.getContext().getAuthentication();
 
-        if(userName !=null  && authentication == null) {
-
-            System.out.println("User Name: " + userName + " Role: " + role + "");
-            //Authenticate
-            UserDetails userDetails
-                    = userDetailsService.loadUserByUsername(userName);
+        if(userName != null && authentication == null) {
+            UsernamePasswordAuthenticationToken authenticationToken =
+                    stateless ? authenticateFromClaims(claims) : authenticateFromUserDetails(claims);
 
-            if(jwtService.isTokenValid(jwt,userDetails)) {
-
-                System.out.println("jwt is valid!");
+            if(authenticationToken != null) {
                 //this token is use for next filter
-                List<SimpleGrantedAuthority> authorities =
-                        Collections.singletonList(new SimpleGrantedAuthority(role));
-
-                UsernamePasswordAuthenticationToken authenticationToken
-                        = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
                 authenticationToken.setDetails(
                         new WebAuthenticationDetailsSource()
                                 .buildDetails(request)
                 );
                 SecurityContextHolder.getContext()
                         .setAuthentication(authenticationToken);
-                System.out.println("executed everything in jwtfilterinternal");
             }
         }
         filterChain.doFilter(request,response);
     }
+
+    //Stateless: principal and authorities come from the signed claims; only deactivation is checked, via a short-TTL cache
+    private UsernamePasswordAuthenticationToken authenticateFromClaims(Claims claims) {
+        String userName = claims.getSubject();
+        if(!userStatusCache.isActive(userName)) {
+            return null;
+        }
+        String role = claims.get("role", String.class);
+        List<SimpleGrantedAuthority> authorities = role != null
+                ? Collections.singletonList(new SimpleGrantedAuthority(role))
+                : Collections.emptyList();
+        return new UsernamePasswordAuthenticationToken(userName, null, authorities);
+    }
+
+    private UsernamePasswordAuthenticationToken authenticateFromUserDetails(Claims claims) {
+        UserDetails userDetails
+                = userDetailsService.loadUserByUsername(claims.getSubject());
+        if(!jwtService.isTokenValid(claims, userDetails)) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+    }
 }
@@ -1,79 +1,129 @@
 package edu.cit.tooltrack.security.jwt;
 
-import edu.cit.tooltrack.dto.LoginRequest;
 import edu.cit.tooltrack.dto.UserResponseDTO;
-import edu.cit.tooltrack.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import org.slf4j.LoggerFactory;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies ToolTrack JWTs. The HMAC keys and the JwtParser are built once at startup
+ * and are immutable, so one instance is shared by every request thread.
+ * <p>
+ * Key rotation: tokens are signed with the current key and carry its id in the {@code kid} header.
+ * Verification accepts the current key plus any retired keys listed in
+ * {@code tooltrack.security.jwt.verification-keys} ({@code kid=base64secret,...}), so tokens issued
+ * before a rotation stay valid until they expire. Tokens without a {@code kid} (issued before key
+ * ids existed) are verified with the current key.
+ */
 @Service
 public class JwtService {
 
     private static final long EXPIRATION_TIME = 2 * 60 * 60 * 1000; //2 hours
-    private static final String SECRET_KEY = System.getenv("JWT_SECRET");
 
-    public static String generateToken(UserResponseDTO user) {
+    private final String signingKeyId;
+    private final SecretKey signingKey;
+    private final Map<String, SecretKey> verificationKeys;
+    private final JwtParser parser;
+
+    public JwtService(@Value("${JWT_SECRET}") String secret,
+                      @Value("${tooltrack.security.jwt.key-id:default}") String keyId,
+                      @Value("${tooltrack.security.jwt.verification-keys:}") String retiredKeys) {
+        this.signingKeyId = keyId;
+        this.signingKey = keyFromBase64(secret);
+
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        keys.put(keyId, signingKey);
+        for (String entry : retiredKeys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] kidAndSecret = entry.trim().split("=", 2);
+            if (kidAndSecret.length != 2) {
+                throw new IllegalArgumentException("Invalid verification key entry, expected kid=base64secret");
+            }
+            keys.putIfAbsent(kidAndSecret[0], keyFromBase64(kidAndSecret[1]));
+        }
+        this.verificationKeys = Map.copyOf(keys);
+
+        this.parser = Jwts
+                .parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        String kid = header.getKeyId();
+                        if (kid == null) {
+                            return signingKey;
+                        }
+                        SecretKey key = verificationKeys.get(kid);
+                        if (key == null) {
+                            throw new SignatureException("Unknown signing key id: " + kid);
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    public String generateToken(UserResponseDTO user) {
+        long now = System.currentTimeMillis();
         return Jwts
                 .builder()
+                .header().keyId(signingKeyId).and()
                 .claim("firstName", user.getFirst_name())
                 .claim("lastName", user.getLast_name())
                 .subject(user.getEmail())
                 .claim("role", user.getRole())
                 .issuer("ToolTrack")
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(generateKeyFromBase64())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + EXPIRATION_TIME))
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String extractUserName(String token) {
-        return extractClaims(token, Claims::getSubject);
+    //verifies signature and expiry once; callers reuse the returned claims instead of re-parsing
+    public Claims parseClaims(String token) {
+        return parser
+                .parseSignedClaims(token)
+                .getPayload();
     }
 
-    private <T> T extractClaims(String token, Function<Claims,T> claimResolver) {
-        Claims claims = extractClaims(token);
-        return claimResolver.apply(claims);
+    public String extractUserName(String token) {
+        return extractClaims(token, Claims::getSubject);
     }
 
     public String extractRole(String token) {
         return extractClaims(token, claims -> claims.get("role", String.class));
     }
 
-    private static SecretKey generateKeyFromBase64() {
-        byte[] decode = Decoders.BASE64.decode(JwtService.SECRET_KEY);
-        return Keys.hmacShaKeyFor(decode);
-    }
-
-    private Claims extractClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(generateKeyFromBase64())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private <T> T extractClaims(String token, Function<Claims,T> claimResolver) {
+        return claimResolver.apply(parseClaims(token));
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String userName = extractUserName(token);
-        return (userName.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isTokenValid(parseClaims(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpirations(token).before(new Date());
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
-    private Date extractExpirations(String token) {
-        return extractClaims(token, Claims::getExpiration);
+    private static SecretKey keyFromBase64(String base64Secret) {
+        byte[] decode = Decoders.BASE64.decode(base64Secret);
+        return Keys.hmacShaKeyFor(decode);
     }
 }
@@ -0,0 +1,45 @@
+package edu.cit.tooltrack.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.cit.tooltrack.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-TTL view of whether a token's subject may still authenticate. Used by the stateless
+ * JWT path so deleted or deactivated users are locked out within the TTL without a DB
+ * round trip on every request.
+ */
+@Component
+public class UserStatusCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Boolean> activeByEmail;
+
+    public UserStatusCache(UserRepository userRepository,
+                           @Value("${tooltrack.security.jwt.status-cache-ttl-seconds:60}") long ttlSeconds,
+                           @Value("${tooltrack.security.jwt.status-cache-size:10000}") long maximumSize) {
+        this.userRepository = userRepository;
+        this.activeByEmail = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public boolean isActive(String email) {
+        return activeByEmail.get(email, this::loadActive);
+    }
+
+    //called when a user is edited or deleted so the change applies before the TTL runs out
+    public void evict(String email) {
+        activeByEmail.invalidate(email);
+    }
+
+    private Boolean loadActive(String email) {
+        Integer isActive = userRepository.findActiveFlagByEmail(email);
+        return isActive != null && isActive != 0;
+    }
+}
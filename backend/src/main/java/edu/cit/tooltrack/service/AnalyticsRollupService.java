@@ -0,0 +1,190 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.dto.MonthlyCountDTO;
+import edu.cit.tooltrack.dto.ToolCountDTO;
+import edu.cit.tooltrack.entity.AnalyticsRollupLock;
+import edu.cit.tooltrack.entity.BorrowCategoryRollup;
+import edu.cit.tooltrack.entity.ToolItems;
+import edu.cit.tooltrack.entity.ToolTransaction;
+import edu.cit.tooltrack.repository.AnalyticsRollupLockRepository;
+import edu.cit.tooltrack.repository.BorrowCategoryRollupRepository;
+import edu.cit.tooltrack.repository.BorrowDailyRollupRepository;
+import edu.cit.tooltrack.repository.BorrowToolRollupRepository;
+import edu.cit.tooltrack.repository.ToolTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the per-day, per-tool and per-category borrow counters behind the admin dashboard.
+ * Counters are bumped inside the same transaction that writes tool_transactions, so dashboard
+ * reads cost O(buckets) instead of re-scanning transaction history. A rebuild holds the
+ * analytics_rollup_locks row exclusively, so no increment can land between its delete and re-insert.
+ * Category counters follow the tool's current category: editing it moves the tool's counts along.
+ */
+@Service
+@Slf4j
+public class AnalyticsRollupService {
+
+    @Autowired
+    private BorrowDailyRollupRepository dailyRollupRepo;
+    @Autowired
+    private BorrowToolRollupRepository toolRollupRepo;
+    @Autowired
+    private BorrowCategoryRollupRepository categoryRollupRepo;
+    @Autowired
+    private ToolTransactionRepository toolTransactionRepo;
+    @Autowired
+    private AnalyticsRollupLockRepository lockRepo;
+
+    //take before writing tool_transactions: waits out a running rebuild, and taking it before any row locks avoids deadlocking with one
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockForIncrement() {
+        if (lockRepo.lockShared(AnalyticsRollupLock.ID).isEmpty()) {
+            lockRepo.insertIfMissing(AnalyticsRollupLock.ID);
+            lockRepo.lockShared(AnalyticsRollupLock.ID);
+        }
+    }
+
+    //a new request counts once per day, tool and category
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRequested(ToolTransaction transaction) {
+        increment(transaction, 1, isApprovedBorrow(transaction) ? 1 : 0);
+    }
+
+    //wasApprovedBorrow is the state before the update, so re-approving or rejecting an approved request stays balanced
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordApprovalChange(ToolTransaction transaction, boolean wasApprovedBorrow) {
+        boolean isApprovedBorrow = isApprovedBorrow(transaction);
+        if (isApprovedBorrow != wasApprovedBorrow) {
+            increment(transaction, 0, isApprovedBorrow ? 1 : -1);
+        }
+    }
+
+    public static boolean isApprovedBorrow(ToolTransaction transaction) {
+        return transaction.getStatus() == ToolTransaction.Status.approved
+                && transaction.getTransaction_type() == ToolTransaction.TransactionType.borrow;
+    }
+
+    private void increment(ToolTransaction transaction, long requested, long approved) {
+        if (transaction.getBorrow_date() != null) {
+            Date day = Date.valueOf(transaction.getBorrow_date().toLocalDateTime().toLocalDate());
+            dailyRollupRepo.increment(day, requested, approved);
+        }
+        ToolItems tool = transaction.getTool_id();
+        if (tool != null) {
+            toolRollupRepo.increment(tool.getTool_id(), requested, approved);
+            categoryRollupRepo.incrementForTool(tool.getTool_id(), requested, approved);
+        }
+    }
+
+    private static String categoryOf(String category) {
+        return category != null ? category : BorrowCategoryRollupRepository.UNCATEGORIZED;
+    }
+
+    //call before the edited tool is written: the exclusive lock keeps increments out until the edit commits, and
+    //increments read the category from tool_items, so none can land on the old category afterwards
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCategoryChange(int toolId, String oldCategory, String newCategory) {
+        String from = categoryOf(oldCategory);
+        String to = categoryOf(newCategory);
+        if (from.equals(to)) {
+            return;
+        }
+        lockExclusive();
+        toolRollupRepo.findForUpdate(toolId).ifPresent(counts -> {
+            categoryRollupRepo.increment(from, -counts.getRequested_count(), -counts.getApproved_count());
+            categoryRollupRepo.increment(to, counts.getRequested_count(), counts.getApproved_count());
+        });
+    }
+
+    private void lockExclusive() {
+        if (lockRepo.lockExclusive(AnalyticsRollupLock.ID).isEmpty()) {
+            lockRepo.insertIfMissing(AnalyticsRollupLock.ID);
+            lockRepo.lockExclusive(AnalyticsRollupLock.ID);
+        }
+    }
+
+    //Backfill: recompute every rollup from tool_transactions in one transaction, blocking increments until it commits
+    @Transactional
+    public void rebuild() {
+        lockExclusive();
+        int approved = ToolTransaction.Status.approved.ordinal();
+        int borrow = ToolTransaction.TransactionType.borrow.ordinal();
+
+        dailyRollupRepo.deleteAllRows();
+        toolRollupRepo.deleteAllRows();
+        categoryRollupRepo.deleteAllRows();
+        dailyRollupRepo.rebuildFromTransactions(approved, borrow);
+        toolRollupRepo.rebuildFromTransactions(approved, borrow);
+        categoryRollupRepo.rebuildFromTransactions(approved, borrow);
+    }
+
+    //first boot after the rollup tables were introduced: seed them from existing history
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (dailyRollupRepo.count() == 0 && toolTransactionRepo.count() > 0) {
+                log.info("Backfilling analytics rollups from transaction history");
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("Analytics rollup backfill failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<Month, Long> getMonthlyCounts() {
+        return toMonthMap(dailyRollupRepo.sumByMonth());
+    }
+
+    public Map<Month, Long> getMonthlyCountsSince(LocalDate from) {
+        return toMonthMap(dailyRollupRepo.sumByMonthSince(Date.valueOf(from)));
+    }
+
+    public Map<Month, Long> getMonthlyCountsBetween(LocalDate from, LocalDate to) {
+        return toMonthMap(dailyRollupRepo.sumByMonthBetween(Date.valueOf(from), Date.valueOf(to)));
+    }
+
+    public Map<String, Integer> getRequestCountsByTool() {
+        return toCountMap(toolRollupRepo.sumRequestedByToolName());
+    }
+
+    public Map<String, Integer> getTopApprovedTools(int limit) {
+        return toCountMap(toolRollupRepo.sumApprovedByToolName(Limit.of(limit)));
+    }
+
+    public Map<String, Long> getRequestCountsByCategory() {
+        Map<String, Long> categoryCounts = new LinkedHashMap<>();
+        for (BorrowCategoryRollup rollup : categoryRollupRepo.findAllOrderByRequested()) {
+            categoryCounts.put(rollup.getCategory(), rollup.getRequested_count());
+        }
+        return categoryCounts;
+    }
+
+    private static Map<Month, Long> toMonthMap(List<MonthlyCountDTO> buckets) {
+        return buckets.stream()
+                .collect(Collectors.groupingBy(bucket -> Month.of(bucket.getMonth()),
+                        Collectors.summingLong(MonthlyCountDTO::getCount)));
+    }
+
+    private static Map<String, Integer> toCountMap(List<ToolCountDTO> counts) {
+        Map<String, Integer> toolCounts = new LinkedHashMap<>();
+        for (ToolCountDTO count : counts) {
+            toolCounts.put(count.getTool_name(), count.getCount().intValue());
+        }
+        return toolCounts;
+    }
+}
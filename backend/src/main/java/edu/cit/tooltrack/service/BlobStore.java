@@ -0,0 +1,45 @@
+package edu.cit.tooltrack.service;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Object storage for uploaded images, their variants and QR codes. Objects are addressed by a folder
+ * ("Tool_Images/", always ending in '/') and a name, and the returned URLs are what gets saved on the
+ * entities. tooltrack.storage.type picks the implementation: s3 (default, {@link S3Service}) or local
+ * ({@link LocalBlobStore}), which keeps objects on disk so the backend runs and load-tests without AWS.
+ */
+public interface BlobStore {
+
+    //both complete with the stored object's URL
+    CompletableFuture<String> upload(File file, String folderPath, String uuidName);
+
+    CompletableFuture<String> upload(byte[] bytes, String folderPath, String uuidName);
+
+    //the whole object as a read-only buffer, e.g. to post-process an upload; fails with IllegalArgumentException
+    //instead of loading an object larger than maxBytes
+    CompletableFuture<ByteBuffer> read(String folderPath, String uuidName, long maxBytes);
+
+    CompletableFuture<String> deleteImage(String uuidName, String folderPath);
+
+    //the store-wide key of an object, as queued for deletion in cleanup_jobs
+    String objectKey(String folderPath, String uuidName);
+
+    //completes with the keys that could not be deleted mapped to the error message
+    CompletableFuture<Map<String, String>> deleteObjects(List<String> keys);
+
+    static String contentType(String fileName) {
+        if (fileName.endsWith(".png")) {
+            return "image/png";
+        } else if (fileName.endsWith(".jpg") || fileName.endsWith(".jpeg")) {
+            return "image/jpeg";
+        } else if (fileName.endsWith(".gif")) {
+            return "image/gif";
+        } else {
+            return "application/octet-stream"; // Default if unknown
+        }
+    }
+}
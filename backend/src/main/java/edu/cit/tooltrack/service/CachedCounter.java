@@ -0,0 +1,48 @@
+package edu.cit.tooltrack.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process row counter for dashboard totals. It is loaded lazily from a COUNT query,
+ * adjusted by the owning service's create/delete paths and periodically reconciled
+ * against the database to correct any drift (rolled-back writes, other instances).
+ */
+public class CachedCounter {
+
+    private static final long UNLOADED = -1;
+
+    private final AtomicLong value = new AtomicLong(UNLOADED);
+    private final LongSupplier source;
+
+    public CachedCounter(LongSupplier source) {
+        this.source = source;
+    }
+
+    public long get() {
+        long current = value.get();
+        if (current != UNLOADED) {
+            return current;
+        }
+        long loaded = source.getAsLong();
+        value.compareAndSet(UNLOADED, loaded);
+        return value.get();
+    }
+
+    public void increment() {
+        adjust(1);
+    }
+
+    public void decrement() {
+        adjust(-1);
+    }
+
+    //until the first read there is nothing to adjust; the first get() loads the exact count
+    private void adjust(long delta) {
+        value.getAndUpdate(current -> current == UNLOADED ? UNLOADED : Math.max(0, current + delta));
+    }
+
+    public void reconcile() {
+        value.set(source.getAsLong());
+    }
+}
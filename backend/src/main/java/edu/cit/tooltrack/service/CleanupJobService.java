@@ -0,0 +1,237 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.entity.CleanupJob;
+import edu.cit.tooltrack.repository.CleanupJobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent, retryable queue for cleanup that must not block or fail the request that caused it:
+ * S3 object deletes (batched through DeleteObjects) and local temp-file removal.
+ * <p>
+ * Jobs are rows in cleanup_jobs. A fixed pool of workers claims due rows with SELECT ... FOR UPDATE
+ * SKIP LOCKED and leases them by pushing next_attempt_at forward, so a crashed worker's jobs are
+ * simply picked up again once the lease runs out. Failures back off exponentially until
+ * max-attempts, after which the job is kept as FAILED for inspection.
+ */
+@Service
+@Slf4j
+public class CleanupJobService {
+
+    @Autowired
+    private CleanupJobRepository cleanupJobRepo;
+    @Autowired
+    private BlobStore blobStore;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tooltrack.cleanup.workers:2}")
+    private int workers;
+    @Value("${tooltrack.cleanup.batch-size:1000}")
+    private int batchSize;
+    @Value("${tooltrack.cleanup.max-attempts:10}")
+    private int maxAttempts;
+    @Value("${tooltrack.cleanup.lease-seconds:300}")
+    private long leaseSeconds;
+    @Value("${tooltrack.cleanup.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+    @Value("${tooltrack.cleanup.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    private ExecutorService executor;
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private Counter completed;
+    private Counter retried;
+    private Counter deadLettered;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "cleanup-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("tooltrack.cleanup.queue.depth", queueDepth, AtomicLong::get)
+                .description("Pending cleanup jobs").register(meterRegistry);
+        Gauge.builder("tooltrack.cleanup.queue.lag", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest due cleanup job").baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("tooltrack.cleanup.jobs.failed", failedJobs, AtomicLong::get)
+                .description("Cleanup jobs that exhausted their retries").register(meterRegistry);
+        completed = meterRegistry.counter("tooltrack.cleanup.jobs", "result", "completed");
+        retried = meterRegistry.counter("tooltrack.cleanup.jobs", "result", "retried");
+        deadLettered = meterRegistry.counter("tooltrack.cleanup.jobs", "result", "failed");
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    //joins the caller's transaction, so the job only exists if the row that referenced the object is really gone
+    public void enqueueS3Delete(String folderPath, String uuidName) {
+        if (uuidName == null || uuidName.isBlank()) {
+            return;
+        }
+        enqueue(CleanupJob.Type.S3_DELETE, blobStore.objectKey(folderPath, uuidName), Duration.ZERO);
+    }
+
+    //for an object that is referenced again, e.g. re-uploaded content whose last reference was just released
+    @Transactional
+    public void cancelS3Delete(String folderPath, String uuidName) {
+        cleanupJobRepo.deletePending(CleanupJob.Type.S3_DELETE, blobStore.objectKey(folderPath, uuidName));
+    }
+
+    //delay > 0 schedules a sweep, e.g. for an upload that may still complete and remove the file itself
+    public void enqueueTempFileDelete(Path path, Duration delay) {
+        enqueue(CleanupJob.Type.TEMP_FILE_DELETE, path.toAbsolutePath().toString(), delay);
+    }
+
+    private void enqueue(CleanupJob.Type type, String target, Duration delay) {
+        CleanupJob job = new CleanupJob();
+        job.setType(type);
+        job.setTarget(target);
+        job.setNext_attempt_at(new Timestamp(System.currentTimeMillis() + delay.toMillis()));
+        cleanupJobRepo.save(job);
+    }
+
+    //every worker drains batches until the queue has nothing due; the next poll starts after all of them finish
+    @Scheduled(fixedDelayString = "${tooltrack.cleanup.poll-interval-ms:10000}")
+    public void poll() {
+        List<Future<?>> running = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            running.add(executor.submit(() -> {
+                while (runBatch() == batchSize) {
+                    //full batch: there may be more due jobs
+                }
+            }));
+        }
+        for (Future<?> worker : running) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                log.error("Cleanup worker failed: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        refreshMetrics();
+    }
+
+    //claims, runs and settles one batch; returns how many jobs were claimed
+    int runBatch() {
+        List<CleanupJob> batch = claim();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, String> failures = new HashMap<>();
+        List<CleanupJob> s3Jobs = new ArrayList<>();
+        for (CleanupJob job : batch) {
+            if (job.getType() == CleanupJob.Type.S3_DELETE) {
+                s3Jobs.add(job);
+            } else {
+                try {
+                    Files.deleteIfExists(Path.of(job.getTarget()));
+                } catch (Exception e) {
+                    failures.put(job.getJob_id(), e.getMessage());
+                }
+            }
+        }
+        if (!s3Jobs.isEmpty()) {
+            try {
+                Map<String, String> failedKeys = blobStore.deleteObjects(s3Jobs.stream().map(CleanupJob::getTarget).toList()).join();
+                for (CleanupJob job : s3Jobs) {
+                    if (failedKeys.containsKey(job.getTarget())) {
+                        failures.put(job.getJob_id(), failedKeys.get(job.getTarget()));
+                    }
+                }
+            } catch (CompletionException e) {
+                String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                s3Jobs.forEach(job -> failures.put(job.getJob_id(), message));
+            }
+        }
+
+        settle(batch, failures);
+        return batch.size();
+    }
+
+    private List<CleanupJob> claim() {
+        return transactionTemplate.execute(status -> {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            List<CleanupJob> due = cleanupJobRepo.findDueForUpdate(CleanupJob.Status.PENDING, now, Limit.of(batchSize));
+            Timestamp leaseUntil = new Timestamp(now.getTime() + leaseSeconds * 1000);
+            for (CleanupJob job : due) {
+                job.setAttempts(job.getAttempts() + 1);
+                job.setNext_attempt_at(leaseUntil);
+            }
+            return due;
+        });
+    }
+
+    private void settle(List<CleanupJob> batch, Map<Long, String> failures) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> done = new ArrayList<>();
+            List<CleanupJob> failed = new ArrayList<>();
+            for (CleanupJob job : batch) {
+                String error = failures.get(job.getJob_id());
+                if (error == null) {
+                    done.add(job.getJob_id());
+                    continue;
+                }
+                job.setLast_error(error.length() > 255 ? error.substring(0, 255) : error);
+                if (job.getAttempts() >= maxAttempts) {
+                    job.setStatus(CleanupJob.Status.FAILED);
+                    log.warn("Cleanup job {} ({} {}) gave up after {} attempts: {}", job.getJob_id(), job.getType(), job.getTarget(), job.getAttempts(), error);
+                } else {
+                    job.setNext_attempt_at(new Timestamp(System.currentTimeMillis() + backoffMillis(job.getAttempts())));
+                }
+                failed.add(job);
+            }
+            cleanupJobRepo.deleteAllByIdInBatch(done);
+            cleanupJobRepo.saveAll(failed);
+        });
+        completed.increment(batch.size() - failures.size());
+        for (CleanupJob job : batch) {
+            if (failures.containsKey(job.getJob_id())) {
+                (job.getStatus() == CleanupJob.Status.FAILED ? deadLettered : retried).increment();
+            }
+        }
+    }
+
+    private long backoffMillis(int attempts) {
+        long seconds = backoffBaseSeconds << Math.min(attempts - 1, 20);
+        return Math.min(seconds, backoffMaxSeconds) * 1000;
+    }
+
+    void refreshMetrics() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        queueDepth.set(cleanupJobRepo.countByStatus(CleanupJob.Status.PENDING));
+        failedJobs.set(cleanupJobRepo.countByStatus(CleanupJob.Status.FAILED));
+        Timestamp oldest = cleanupJobRepo.findOldestDueCreatedAt(now);
+        lagSeconds.set(oldest == null ? 0 : Math.max(0, (now.getTime() - oldest.getTime()) / 1000));
+    }
+}
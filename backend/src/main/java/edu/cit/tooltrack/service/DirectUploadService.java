@@ -0,0 +1,210 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.dto.DirectUploadDTO;
+import edu.cit.tooltrack.dto.PresignedUrlDTO;
+import edu.cit.tooltrack.entity.DirectUpload;
+import edu.cit.tooltrack.entity.ImageBlob;
+import edu.cit.tooltrack.repository.DirectUploadRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.Part;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Uploads that bypass the backend: clients PUT the bytes straight to S3 through presigned URLs, then
+ * call complete, which only registers the stored object and builds its variants. Files up to one part
+ * go in a single PUT keyed by their SHA-256 and signed with that checksum, so S3 itself verifies the
+ * content and it can be deduplicated like any other upload. Larger files, or clients that cannot hash,
+ * use a multipart upload with one presigned URL per part; those objects are not content addressed.
+ * Each part URL is signed with its length, the declared size is recorded in direct_uploads, and
+ * complete refuses (and aborts) an upload whose parts do not add up to it, so nothing larger than
+ * the upload limit is ever assembled or read back for variants.
+ * Neither presign nor complete references the image, so both can be retried freely; the reference is
+ * taken when a tool or return record is saved with it (see {@link ImageBlobService}).
+ * The result of complete is what /toolitem/addTool and /returned/add take as image_url and image_name.
+ */
+@Service
+@Slf4j
+public class DirectUploadService {
+
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    //absent when tooltrack.storage.type=local; there is no URL signing then, so clients use the chunked upload
+    @Autowired(required = false)
+    private S3Service s3Service;
+    @Autowired
+    private ImageBlobService imageBlobService;
+    @Autowired
+    private ImagePipelineService imagePipelineService;
+    @Autowired
+    private DirectUploadRepository directUploadRepository;
+
+    @Value("${tooltrack.upload.max-size-bytes:20971520}")
+    private long maxUploadSize;
+    @Value("${tooltrack.upload.direct-part-size-bytes:8388608}")
+    private long partSize;
+    @Value("${tooltrack.upload.session-ttl-minutes:1440}")
+    private long sessionTtlMinutes;
+
+    //sha256 (hex) is optional; with it, content that is already stored comes back in stored and nothing needs sending
+    public CompletableFuture<DirectUploadDTO> presignUpload(String name, long size, String sha256, ImageChunkUploader.UploadTarget target) {
+        if (size <= 0 || size > maxUploadSize) {
+            throw new IllegalArgumentException("File size must be between 1 and " + maxUploadSize + " bytes");
+        }
+        S3Service s3 = requireS3();
+        String directory = target.getDirectory();
+        if (sha256 != null) {
+            sha256 = sha256.toLowerCase(Locale.ROOT);
+            if (!SHA256_HEX.matcher(sha256).matches()) {
+                throw new IllegalArgumentException("sha256 must be 64 hex characters");
+            }
+            //no reference is taken here: the tool or return record saved with the result attaches it
+            ImageBlob existing = imageBlobService.reuse(directory, sha256);
+            if (existing != null) {
+                return CompletableFuture.completedFuture(
+                        new DirectUploadDTO(existing.getObject_name(), null, size, List.of(), ImageBlobService.toUploadResult(existing)));
+            }
+            if (size <= partSize) {
+                String contentName = sha256 + ImageChunkUploader.extension(safeName(name));
+                PresignedUrlDTO put = s3.presignPut(directory, contentName, size, sha256);
+                return CompletableFuture.completedFuture(new DirectUploadDTO(contentName, null, size, List.of(put), null));
+            }
+        }
+
+        //S3 needs every part but the last to be at least 5 MiB, and complete lists the parts in one call
+        long effectivePartSize = Math.max(Math.max(partSize, MIN_PART_SIZE), (size + S3Service.MAX_LISTED_PARTS - 1) / S3Service.MAX_LISTED_PARTS);
+        int parts = (int) ((size + effectivePartSize - 1) / effectivePartSize);
+        String imageName = UUID.randomUUID() + "_" + safeName(name);
+        return s3.createMultipartUpload(directory, imageName).thenApply(uploadId -> {
+            DirectUpload upload = new DirectUpload();
+            upload.setUpload_id(uploadId);
+            upload.setFolder(directory);
+            upload.setImage_name(imageName);
+            upload.setSize(size);
+            directUploadRepository.save(upload);
+            List<PresignedUrlDTO> partUrls = new ArrayList<>(parts);
+            for (int partNumber = 1; partNumber <= parts; partNumber++) {
+                long length = Math.min(effectivePartSize, size - (partNumber - 1) * effectivePartSize);
+                partUrls.add(s3.presignUploadPart(directory, imageName, uploadId, partNumber, length));
+            }
+            return new DirectUploadDTO(imageName, uploadId, effectivePartSize, partUrls, null);
+        });
+    }
+
+    //returns imageUrl, image_name and variant urls, the same as a chunked upload; uploadId is null for single PUTs
+    public CompletableFuture<Map<String, String>> completeUpload(String imageName, String uploadId, ImageChunkUploader.UploadTarget target) {
+        S3Service s3 = requireS3();
+        String directory = target.getDirectory();
+        if (!imageName.equals(safeName(imageName))) {
+            throw new IllegalArgumentException("Invalid image name");
+        }
+        if (uploadId == null) {
+            String sha256 = imageName.length() >= 64 ? imageName.substring(0, 64) : "";
+            if (!SHA256_HEX.matcher(sha256).matches() || !imageName.substring(64).equals(ImageChunkUploader.extension(imageName))) {
+                throw new IllegalArgumentException("Single uploads are named by their content hash");
+            }
+            //a repeated complete returns what the first one registered; completing only records the object, so it takes no reference
+            ImageBlob registered = imageBlobService.reuse(directory, sha256);
+            if (registered != null) {
+                return CompletableFuture.completedFuture(ImageBlobService.toUploadResult(registered));
+            }
+            //S3 only accepted the PUT if the bytes matched the signed checksum, so the name is the verified hash
+            return s3.headObject(directory, imageName)
+                    .thenCompose(imageUrl -> imagePipelineService.createVariants(directory, imageName)
+                            .thenApply(variants -> ImageBlobService.toUploadResult(
+                                    imageBlobService.register(directory, sha256, imageName, imageUrl, variants))));
+        }
+        DirectUpload upload = directUploadRepository.findById(uploadId)
+                .filter(pending -> pending.getFolder().equals(directory) && pending.getImage_name().equals(imageName))
+                .orElseThrow(() -> new NoSuchElementException("Upload " + uploadId + " not found"));
+        return s3.listParts(directory, imageName, uploadId)
+                .thenCompose(parts -> {
+                    if (parts.isEmpty()) {
+                        throw new IllegalStateException("No parts have been uploaded");
+                    }
+                    long received = parts.stream().mapToLong(Part::size).sum();
+                    if (received > maxUploadSize || received != upload.getSize()) {
+                        //a client that sent other sizes than it declared starts over
+                        directUploadRepository.delete(upload);
+                        return s3.abortMultipartUpload(directory, imageName, uploadId).thenApply(aborted -> {
+                            throw new IllegalArgumentException("Uploaded " + received + " bytes, expected " + upload.getSize());
+                        });
+                    }
+                    List<CompletedPart> completed = parts.stream()
+                            .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+                            .toList();
+                    return s3.completeMultipartUpload(directory, imageName, uploadId, completed)
+                            .whenComplete((imageUrl, e) -> {
+                                if (e == null) {
+                                    directUploadRepository.delete(upload);
+                                }
+                            });
+                })
+                .thenCompose(imageUrl -> imagePipelineService.createVariants(directory, imageName)
+                        .thenApply(variants -> {
+                            Map<String, String> result = new HashMap<>(variants);
+                            result.put("imageUrl", imageUrl);
+                            result.put("image_name", imageName);
+                            return result;
+                        }));
+    }
+
+    public CompletableFuture<Void> abortUpload(String imageName, String uploadId, ImageChunkUploader.UploadTarget target) {
+        if (!imageName.equals(safeName(imageName))) {
+            throw new IllegalArgumentException("Invalid image name");
+        }
+        directUploadRepository.deleteById(uploadId);
+        return requireS3().abortMultipartUpload(target.getDirectory(), imageName, uploadId);
+    }
+
+    //multipart uploads a client never completed or aborted; their parts are discarded with them
+    @Scheduled(fixedDelayString = "${tooltrack.upload.cleanup-interval-ms:3600000}")
+    public void expireStaleUploads() {
+        if (s3Service == null) {
+            return;
+        }
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - sessionTtlMinutes * 60_000);
+        for (DirectUpload upload : directUploadRepository.findCreatedBefore(cutoff)) {
+            directUploadRepository.delete(upload);
+            s3Service.abortMultipartUpload(upload.getFolder(), upload.getImage_name(), upload.getUpload_id())
+                    .exceptionally(e -> {
+                        log.warn("Could not abort expired direct upload {}: {}", upload.getImage_name(), e.getMessage());
+                        return null;
+                    });
+        }
+    }
+
+    public PresignedUrlDTO presignDownload(String imageName, ImageChunkUploader.UploadTarget target) {
+        if (!imageName.equals(safeName(imageName))) {
+            throw new IllegalArgumentException("Invalid image name");
+        }
+        return requireS3().presignGet(target.getDirectory(), imageName);
+    }
+
+    private S3Service requireS3() {
+        if (s3Service == null) {
+            throw new IllegalStateException("Presigned URLs need tooltrack.storage.type=s3");
+        }
+        return s3Service;
+    }
+
+    private static String safeName(String name) {
+        return Path.of(name).getFileName().toString();
+    }
+}
@@ -0,0 +1,86 @@
+package edu.cit.tooltrack.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+//Stages the upload in a local file with positional writes, then stores the whole file in the blob store
+class DiskUploadSink implements UploadSink {
+
+    private final BlobStore blobStore;
+    private final Path path;
+    private final long size;
+    private final String directory;
+
+    DiskUploadSink(BlobStore blobStore, Path path, long size, String directory) throws IOException {
+        this.blobStore = blobStore;
+        this.path = path;
+        this.size = size;
+        this.directory = directory;
+        Files.createDirectories(path.getParent());
+        Files.deleteIfExists(path);
+        Files.createFile(path);
+    }
+
+    @Override
+    public CompletableFuture<Void> write(int chunkIndex, long offset, int length, InputStream in) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ReadableByteChannel source = Channels.newChannel(in);
+            long written = 0;
+            while (written < length) {
+                long transferred = channel.transferFrom(source, offset + written, length - written);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+            if (written != length) {
+                throw new IllegalArgumentException("Chunk " + chunkIndex + " must be exactly " + length + " bytes");
+            }
+            UploadSink.requireEndOfStream(in, chunkIndex, length);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<String> finish(String expectedSha256) throws IOException {
+        try {
+            long actualSize = Files.size(path);
+            if (actualSize != size) {
+                throw new IllegalStateException("Expected " + size + " bytes but received " + actualSize);
+            }
+            //chunks may arrive in any order, so the file is hashed once it is whole
+            String sha256 = UploadSink.sha256Hex(path);
+            if (expectedSha256 != null && !expectedSha256.isBlank() && !expectedSha256.equalsIgnoreCase(sha256)) {
+                throw new IllegalStateException("Checksum mismatch");
+            }
+            return CompletableFuture.completedFuture(sha256);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<StoredObject> store(String contentName) {
+        return blobStore.upload(path.toFile(), directory, contentName)
+                .thenApply(imageUrl -> new StoredObject(contentName, imageUrl))
+                .whenComplete((stored, e) -> abort());
+    }
+
+    @Override
+    public CompletableFuture<Void> abort() {
+        try {
+            Files.deleteIfExists(path);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.entity.ImageBlob;
+import edu.cit.tooltrack.repository.ImageBlobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Content-addressed image storage. Uploads are keyed by their SHA-256 within a folder: an upload whose
+ * bytes are already stored reuses the object (and its variants) without a PUT. Uploading takes no
+ * reference; a tool or return record attaches the image when it is saved and releases it when it is
+ * deleted, so abandoned uploads and failed saves hold nothing. Objects that no record holds are
+ * removed once no upload has resolved to them for the unattached TTL.
+ */
+@Service
+@Slf4j
+public class ImageBlobService {
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+    @Autowired
+    private CleanupJobService cleanupJobService;
+
+    @Value("${tooltrack.upload.unattached-ttl-minutes:1440}")
+    private long unattachedTtlMinutes;
+
+    //the stored object with these bytes, or null if the content is new; the caller still has to attach it
+    @Transactional
+    public ImageBlob reuse(String folder, String sha256) {
+        if (imageBlobRepository.touch(folder, sha256) == 0) {
+            return null;
+        }
+        return imageBlobRepository.findByContent(folder, sha256).orElse(null);
+    }
+
+    //records a freshly stored object; if the same bytes were registered meanwhile, that object wins and ours is dropped
+    @Transactional
+    public ImageBlob register(String folder, String sha256, String objectName, String imageUrl, Map<String, String> variants) {
+        imageBlobRepository.insertOrTouch(folder, sha256, objectName, imageUrl, variants.get("thumbnail_url"), variants.get("medium_url"));
+        ImageBlob blob = imageBlobRepository.findByContent(folder, sha256).orElseThrow();
+        if (blob.getObject_name().equals(objectName)) {
+            //the last reference to this content may have been released moments ago
+            cleanupJobService.cancelS3Delete(folder, objectName);
+            for (String variant : ImagePipelineService.VARIANTS) {
+                cleanupJobService.cancelS3Delete(folder, ImagePipelineService.variantName(objectName, variant));
+            }
+        } else {
+            enqueueDeletes(folder, objectName);
+        }
+        return blob;
+    }
+
+    //joins the caller's transaction, so the reference only exists if the record holding the image is saved;
+    //false for names that are not content addressed (legacy and multipart uploads), which are not counted
+    @Transactional
+    public boolean attach(String folder, String objectName) {
+        if (objectName == null || objectName.isBlank()) {
+            return false;
+        }
+        return imageBlobRepository.attach(folder, objectName) > 0;
+    }
+
+    //false when the object predates content addressing; the caller then deletes it directly
+    @Transactional
+    public boolean release(String folder, String objectName) {
+        ImageBlob blob = imageBlobRepository.findByObjectName(folder, objectName).orElse(null);
+        if (blob == null) {
+            return false;
+        }
+        imageBlobRepository.decrementRefCount(blob.getBlob_id());
+        //content uploaded again recently is left for the sweep, since that client may still attach it
+        if (imageBlobRepository.deleteIfUnreferenced(blob.getBlob_id(), unattachedCutoff()) > 0) {
+            enqueueDeletes(folder, objectName);
+        }
+        return true;
+    }
+
+    //uploads that never ended up on a tool or return record, and released content nobody re-attached
+    @Transactional
+    @Scheduled(fixedDelayString = "${tooltrack.upload.cleanup-interval-ms:3600000}")
+    public int expireUnattached() {
+        Timestamp cutoff = unattachedCutoff();
+        int expired = 0;
+        for (ImageBlob blob : imageBlobRepository.findUnattached(cutoff)) {
+            if (imageBlobRepository.deleteIfUnreferenced(blob.getBlob_id(), cutoff) > 0) {
+                enqueueDeletes(blob.getFolder(), blob.getObject_name());
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            log.info("Expired {} unattached images", expired);
+        }
+        return expired;
+    }
+
+    private Timestamp unattachedCutoff() {
+        return new Timestamp(System.currentTimeMillis() - unattachedTtlMinutes * 60_000);
+    }
+
+    //upload response for a stored object: imageUrl, image_name and the variant urls that exist
+    public static Map<String, String> toUploadResult(ImageBlob blob) {
+        Map<String, String> result = new HashMap<>();
+        result.put("imageUrl", blob.getImage_url());
+        result.put("image_name", blob.getObject_name());
+        if (blob.getThumbnail_url() != null) {
+            result.put("thumbnail_url", blob.getThumbnail_url());
+        }
+        if (blob.getMedium_url() != null) {
+            result.put("medium_url", blob.getMedium_url());
+        }
+        return result;
+    }
+
+    private void enqueueDeletes(String folder, String objectName) {
+        cleanupJobService.enqueueS3Delete(folder, objectName);
+        for (String variant : ImagePipelineService.VARIANTS) {
+            cleanupJobService.enqueueS3Delete(folder, ImagePipelineService.variantName(objectName, variant));
+        }
+    }
+}
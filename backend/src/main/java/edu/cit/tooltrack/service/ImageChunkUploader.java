@@ -1,32 +1,93 @@
 package edu.cit.tooltrack.service;
 
+import edu.cit.tooltrack.dto.UploadSessionDTO;
+import edu.cit.tooltrack.entity.ImageBlob;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.web.bind.annotation.DeleteMapping;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Component
+@Slf4j
 public class ImageChunkUploader {
 
     @Autowired
-    private S3Service s3Service;
+    private BlobStore blobStore;
+    @Autowired
+    private CleanupJobService cleanupJobService;
+    @Autowired
+    private ImagePipelineService imagePipelineService;
+    @Autowired
+    private ImageBlobService imageBlobService;
+    @Autowired
+    private MeterRegistry meterRegistry;
     private String imageName;
     private static final String UPLOAD_DIR = "backend/uploads/"; // Directory to store uploaded files
     private static final ConcurrentHashMap<String, Long> uploadedSizes = new ConcurrentHashMap<>();
+    private static final int MAX_CHUNKS = 10_000;
+
+    //resumable upload sessions keyed by upload id
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    @Value("${tooltrack.upload.max-size-bytes:20971520}")
+    private long maxUploadSize;
+    @Value("${tooltrack.upload.session-ttl-minutes:1440}")
+    private long sessionTtlMinutes;
+    //disk: stage in UPLOAD_DIR then PUT; s3-multipart: stream parts to S3 as chunks arrive
+    @Value("${tooltrack.upload.mode:disk}")
+    private String uploadMode;
+    //s3-multipart only: part buffers held in memory across all sessions before chunks are refused
+    @Value("${tooltrack.upload.multipart-buffer-limit-bytes:268435456}")
+    private long multipartBufferLimit;
+
+    private S3MultipartUploadSink.BufferBudget multipartBuffers;
+
+    @PostConstruct
+    void createBufferBudget() {
+        multipartBuffers = new S3MultipartUploadSink.BufferBudget(multipartBufferLimit);
+        Gauge.builder("tooltrack.upload.multipart.buffered", multipartBuffers, S3MultipartUploadSink.BufferBudget::used)
+                .baseUnit("bytes").description("Multipart part bytes held in memory").register(meterRegistry);
+    }
+
+    public static final String S3_MULTIPART_MODE = "s3-multipart";
+
+    //S3 folder per upload type, so clients cannot pick arbitrary keys
+    public enum UploadTarget {
+        TOOL("Tool_Images/"),
+        RETURNED("ReturnedTool_Images/");
+
+        private final String directory;
+
+        UploadTarget(String directory) {
+            this.directory = directory;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+    }
 
-    public String uploadChunk(String uuidName, long size,
+    //completes with imageUrl, image_name (plus thumbnail_url/medium_url when variants exist) after the final chunk, or with null while more chunks are expected
+    public CompletableFuture<Map<String, String>> uploadChunk(String uuidName, long size,
                               int currentChunkIndex,
                               int totalChunks,
                               HttpServletRequest request,
@@ -38,6 +99,10 @@ public class ImageChunkUploader {
         }
 
         File outputFile = new File(uploadDir, uuidName);
+        if (currentChunkIndex == 0) {
+            //swept later if the client never sends the final chunk
+            cleanupJobService.enqueueTempFileDelete(outputFile.toPath(), Duration.ofMinutes(sessionTtlMinutes));
+        }
 
         try (InputStream inputStream = request.getInputStream();
             FileOutputStream fos = new FileOutputStream(outputFile, true)) {
@@ -49,14 +114,174 @@ public class ImageChunkUploader {
         }
 
         if (currentChunkIndex == totalChunks - 1) {
-            // Final chunk received, upload to S3 and delete local file
-            String imageUrl = s3Service.upload(outputFile,directory , uuidName);
-            // Clean up local file after upload
-            outputFile.delete();
-            return imageUrl;
+            // Final chunk received: reuse the stored copy of identical bytes, otherwise upload under the content hash
+            // and build the variants from the same local file, cleaning it up once both finish
+            String contentHash = UploadSink.sha256Hex(outputFile.toPath());
+            ImageBlob existing = imageBlobService.reuse(directory, contentHash);
+            if (existing != null) {
+                outputFile.delete();
+                return CompletableFuture.completedFuture(ImageBlobService.toUploadResult(existing));
+            }
+            String contentName = contentHash + extension(uuidName);
+            CompletableFuture<String> original = blobStore.upload(outputFile, directory, contentName);
+            CompletableFuture<Map<String, String>> variants = imagePipelineService.createVariants(outputFile.toPath(), directory, contentName);
+            CompletableFuture.allOf(original, variants).whenComplete((done, e) -> outputFile.delete());
+            return original.thenCombine(variants, (imageUrl, variantUrls) -> ImageBlobService.toUploadResult(
+                    imageBlobService.register(directory, contentHash, contentName, imageUrl, variantUrls)));
+        }
+
+        return CompletableFuture.completedFuture(null); // Waiting for more chunks
+    }
+
+    //Resumable uploads: chunk i always covers bytes [i * chunkSize, (i + 1) * chunkSize), so chunks can arrive in parallel, out of order and be retried
+    public CompletableFuture<UploadSessionDTO> initUpload(String name, long size, int chunkSize, UploadTarget target) throws IOException {
+        if (size <= 0 || size > maxUploadSize) {
+            throw new IllegalArgumentException("File size must be between 1 and " + maxUploadSize + " bytes");
+        }
+        if (chunkSize <= 0 || (size + chunkSize - 1) / chunkSize > MAX_CHUNKS) {
+            throw new IllegalArgumentException("Chunk size must be positive and split the file into at most " + MAX_CHUNKS + " chunks");
+        }
+        String safeName = Path.of(name).getFileName().toString();
+        String uploadId = UUID.randomUUID().toString();
+        String imageName = UUID.randomUUID() + "_" + safeName;
+        if (S3_MULTIPART_MODE.equals(uploadMode) && !(blobStore instanceof S3Service)) {
+            throw new IllegalStateException("Upload mode " + S3_MULTIPART_MODE + " needs the S3 blob store");
+        }
+        CompletableFuture<? extends UploadSink> sink = S3_MULTIPART_MODE.equals(uploadMode)
+                ? S3MultipartUploadSink.start((S3Service) blobStore, target.directory, imageName, size, chunkSize, multipartBuffers)
+                : CompletableFuture.completedFuture(new DiskUploadSink(blobStore, Path.of(UPLOAD_DIR, imageName), size, target.directory));
+        if (!S3_MULTIPART_MODE.equals(uploadMode)) {
+            //the in-memory session expiry does not survive a restart; this sweep does
+            cleanupJobService.enqueueTempFileDelete(Path.of(UPLOAD_DIR, imageName), Duration.ofMinutes(sessionTtlMinutes));
+        }
+
+        return sink.thenApply(created -> {
+            UploadSession session = new UploadSession(uploadId, imageName, target.directory, size, chunkSize, created);
+            sessions.put(uploadId, session);
+            return session.toDTO();
+        });
+    }
+
+    //the body is read on the calling thread; the future completes once the chunk is stored (for multipart, once its part is in S3)
+    public CompletableFuture<UploadSessionDTO> writeChunk(String uploadId, int chunkIndex, InputStream inputStream) throws IOException {
+        UploadSession session = getSession(uploadId);
+        if (chunkIndex < 0 || chunkIndex >= session.totalChunks) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (session.totalChunks - 1));
         }
+        long offset = (long) chunkIndex * session.chunkSize;
+        int expected = (int) Math.min(session.chunkSize, session.size - offset);
 
-        return null; // Waiting for more chunks
+        return session.sink.write(chunkIndex, offset, expected, inputStream)
+                .thenApply(stored -> {
+                    session.markReceived(chunkIndex);
+                    return session.toDTO();
+                });
+    }
+
+    public UploadSessionDTO getUploadStatus(String uploadId) {
+        return getSession(uploadId).toDTO();
+    }
+
+    //returns imageUrl, image_name and variant urls; sha256 (hex) is optional but should be sent by clients that can compute it
+    public CompletableFuture<Map<String, String>> completeUpload(String uploadId, String sha256) throws IOException {
+        UploadSession session = getSession(uploadId);
+        if (!session.isComplete()) {
+            throw new IllegalStateException("Upload is missing chunks " + session.toDTO().getMissingChunks());
+        }
+        if (!sessions.remove(uploadId, session)) {
+            throw new NoSuchElementException("Upload " + uploadId + " not found");
+        }
+        return session.sink.finish(sha256).thenCompose(contentHash -> {
+            ImageBlob existing = imageBlobService.reuse(session.directory, contentHash);
+            if (existing != null) {
+                //identical bytes are already stored: drop this copy instead of storing it again
+                return session.sink.abort().thenApply(discarded -> ImageBlobService.toUploadResult(existing));
+            }
+            return session.sink.store(contentHash + extension(session.imageName))
+                    .thenCompose(stored -> imagePipelineService.createVariants(session.directory, stored.name())
+                            .thenApply(variants -> ImageBlobService.toUploadResult(
+                                    imageBlobService.register(session.directory, contentHash, stored.name(), stored.url(), variants))));
+        });
+    }
+
+    //lower-case extension of the client's file name, kept on content-addressed names so content types still resolve
+    static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot >= 0 ? fileName.substring(dot).toLowerCase(Locale.ROOT) : "";
+        return extension.matches("\\.[a-z0-9]{1,5}") ? extension : "";
+    }
+
+    public CompletableFuture<Void> abortUploadSession(String uploadId) {
+        UploadSession session = sessions.remove(uploadId);
+        if (session == null) {
+            throw new NoSuchElementException("Upload " + uploadId + " not found");
+        }
+        return session.sink.abort();
+    }
+
+    //drops sessions a client never finished so their partial files and multipart uploads do not pile up
+    @Scheduled(fixedDelayString = "${tooltrack.upload.cleanup-interval-ms:3600000}")
+    public void expireStaleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTtlMinutes * 60_000;
+        sessions.values().removeIf(session -> {
+            if (session.lastActivity >= cutoff) {
+                return false;
+            }
+            session.sink.abort().exceptionally(e -> {
+                log.warn("Could not clean up expired upload {}: {}", session.imageName, e.getMessage());
+                return null;
+            });
+            return true;
+        });
+    }
+
+    private UploadSession getSession(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            throw new NoSuchElementException("Upload " + uploadId + " not found");
+        }
+        return session;
+    }
+
+    private static class UploadSession {
+        private final String uploadId;
+        private final String imageName;
+        private final String directory;
+        private final long size;
+        private final int chunkSize;
+        private final int totalChunks;
+        private final UploadSink sink;
+        private final BitSet received;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        UploadSession(String uploadId, String imageName, String directory, long size, int chunkSize, UploadSink sink) {
+            this.uploadId = uploadId;
+            this.imageName = imageName;
+            this.directory = directory;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.totalChunks = (int) ((size + chunkSize - 1) / chunkSize);
+            this.sink = sink;
+            this.received = new BitSet(totalChunks);
+        }
+
+        synchronized void markReceived(int chunkIndex) {
+            received.set(chunkIndex);
+            lastActivity = System.currentTimeMillis();
+        }
+
+        synchronized boolean isComplete() {
+            return received.cardinality() == totalChunks;
+        }
+
+        synchronized UploadSessionDTO toDTO() {
+            List<Integer> receivedChunks = new ArrayList<>(received.cardinality());
+            List<Integer> missingChunks = new ArrayList<>(totalChunks - received.cardinality());
+            for (int i = 0; i < totalChunks; i++) {
+                (received.get(i) ? receivedChunks : missingChunks).add(i);
+            }
+            return new UploadSessionDTO(uploadId, imageName, size, chunkSize, totalChunks, receivedChunks, missingChunks);
+        }
     }
 
 
@@ -64,10 +289,15 @@ public class ImageChunkUploader {
     public String abortUpload(String fileName) {
         try {
             Path filePath = Path.of(UPLOAD_DIR, fileName);
-            Files.deleteIfExists(filePath);
             uploadedSizes.remove(fileName);
+            try {
+                Files.deleteIfExists(filePath);
+            } catch (IOException e) {
+                //e.g. still held open by a chunk write; the cleanup queue retries it
+                cleanupJobService.enqueueTempFileDelete(filePath, Duration.ZERO);
+            }
             return "Upload aborted successfully";
-        } catch (IOException e) {
+        } catch (Exception e) {
             return "Failed to abort upload: " + e.getMessage();
         }
     }
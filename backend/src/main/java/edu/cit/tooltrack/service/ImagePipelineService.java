@@ -0,0 +1,335 @@
+package edu.cit.tooltrack.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.AffineTransformOp;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the list-view variants of an uploaded photo: the original is decoded once, rotated per its
+ * EXIF orientation, scaled to a medium and (from that) a thumbnail size and re-encoded as progressive
+ * JPEG without any metadata, so camera EXIF (GPS, device) never reaches the variants. Variants are
+ * stored next to the original as {@code <name>_medium.jpg} and {@code <name>_thumb.jpg}.
+ * <p>
+ * Decoding a camera photo holds tens of MB of pixels, so work runs on a small dedicated pool.
+ * Images ImageIO cannot read (e.g. HEIC) or that are too large simply get no variants; clients
+ * fall back to image_url.
+ */
+@Service
+@Slf4j
+public class ImagePipelineService {
+
+    public static final String THUMBNAIL = "thumb";
+    public static final String MEDIUM = "medium";
+    public static final List<String> VARIANTS = List.of(THUMBNAIL, MEDIUM);
+    private static final String EXIF_HEADER = "Exif\0\0";
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Value("${tooltrack.image.thumbnail-size:256}")
+    private int thumbnailSize;
+    @Value("${tooltrack.image.medium-size:1024}")
+    private int mediumSize;
+    @Value("${tooltrack.image.quality:0.8}")
+    private float quality;
+    //decompression bomb guard: a 24 MP photo is ~100 MB of decoded pixels
+    @Value("${tooltrack.image.max-pixels:50000000}")
+    private long maxPixels;
+    //objects read back from storage are never bigger than an accepted upload
+    @Value("${tooltrack.upload.max-size-bytes:20971520}")
+    private long maxUploadSize;
+    @Value("${tooltrack.image.threads:2}")
+    private int threads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "image-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    //completes with thumbnail_url/medium_url, or an empty map if no variants could be made; never fails
+    public CompletableFuture<Map<String, String>> createVariants(Path original, String directory, String imageName) {
+        return CompletableFuture.supplyAsync(() -> encodeVariants(() -> ImageIO.createImageInputStream(original.toFile())), executor)
+                .thenCompose(variants -> storeVariants(variants, directory, imageName))
+                .exceptionally(e -> noVariants(imageName, e));
+    }
+
+    //for uploads that went straight to storage: the original is read back once (memory-mapped for the local store)
+    public CompletableFuture<Map<String, String>> createVariants(String directory, String imageName) {
+        return blobStore.read(directory, imageName, maxUploadSize)
+                .thenApplyAsync(buffer -> encodeVariants(() -> new ByteBufferImageInputStream(buffer)), executor)
+                .thenCompose(variants -> storeVariants(variants, directory, imageName))
+                .exceptionally(e -> noVariants(imageName, e));
+    }
+
+    public static String variantName(String imageName, String variant) {
+        int dot = imageName.lastIndexOf('.');
+        String base = dot > 0 ? imageName.substring(0, dot) : imageName;
+        return base + "_" + variant + ".jpg";
+    }
+
+    private Map<String, String> noVariants(String imageName, Throwable e) {
+        log.warn("No image variants for {}: {}", imageName, e.getMessage());
+        return Map.of();
+    }
+
+    private CompletableFuture<Map<String, String>> storeVariants(Map<String, byte[]> variants, String directory, String imageName) {
+        CompletableFuture<String> thumbnail = blobStore.upload(variants.get(THUMBNAIL), directory, variantName(imageName, THUMBNAIL));
+        CompletableFuture<String> medium = blobStore.upload(variants.get(MEDIUM), directory, variantName(imageName, MEDIUM));
+        return thumbnail.thenCombine(medium, (thumbnailUrl, mediumUrl) -> {
+            Map<String, String> urls = new HashMap<>();
+            urls.put("thumbnail_url", thumbnailUrl);
+            urls.put("medium_url", mediumUrl);
+            return urls;
+        });
+    }
+
+    interface ImageSource {
+        ImageInputStream open() throws IOException;
+    }
+
+    private record Decoded(BufferedImage image, int orientation) {
+    }
+
+    Map<String, byte[]> encodeVariants(ImageSource source) {
+        try {
+            Decoded decoded = decode(source);
+            //scale before rotating so the rotation only touches the small image
+            BufferedImage medium = orient(scale(decoded.image(), mediumSize), decoded.orientation());
+            BufferedImage thumbnail = scale(medium, thumbnailSize);
+            return Map.of(MEDIUM, encodeJpeg(medium), THUMBNAIL, encodeJpeg(thumbnail));
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private Decoded decode(ImageSource source) throws IOException {
+        try (ImageInputStream in = source.open()) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                int orientation = exifOrientation(in);
+                //metadata is skipped: ImageIO rejects common camera layouts (Exif before JFIF) when parsing it
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("Image has " + pixels + " pixels, the limit is " + maxPixels);
+                }
+                return new Decoded(reader.read(0), orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    //scales so the longest side is at most maxSide (never up) and flattens to opaque RGB
+    private static BufferedImage scale(BufferedImage source, int maxSide) {
+        double ratio = Math.min(1.0, (double) maxSide / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage current = source;
+        do {
+            //halving steps keep bilinear filtering from skipping source pixels on large reductions
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            current = draw(current, width, height);
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    //applies EXIF orientation 2-8, since the variants are written without the tag
+    private static BufferedImage orient(BufferedImage image, int orientation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2 -> { transform.scale(-1.0, 1.0); transform.translate(-width, 0); }
+            case 3 -> { transform.translate(width, height); transform.rotate(Math.PI); }
+            case 4 -> { transform.scale(1.0, -1.0); transform.translate(0, -height); }
+            case 5 -> { transform.rotate(-Math.PI / 2); transform.scale(-1.0, 1.0); }
+            case 6 -> { transform.translate(height, 0); transform.rotate(Math.PI / 2); }
+            case 7 -> { transform.scale(-1.0, 1.0); transform.translate(-height, 0); transform.translate(0, width); transform.rotate(3 * Math.PI / 2); }
+            case 8 -> { transform.translate(0, width); transform.rotate(3 * Math.PI / 2); }
+            default -> {
+                return image;
+            }
+        }
+        BufferedImage target = orientation >= 5
+                ? new BufferedImage(height, width, BufferedImage.TYPE_INT_RGB)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        return new AffineTransformOp(transform, AffineTransformOp.TYPE_NEAREST_NEIGHBOR).filter(image, target);
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            //no metadata is passed, so the output only carries a JFIF header; the stream avoids ImageIO's temp-file cache
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    //scans the marker segments ahead of the image data for an Exif APP1; 1 when absent or not a JPEG
+    private static int exifOrientation(ImageInputStream in) throws IOException {
+        in.mark();
+        try {
+            in.setByteOrder(ByteOrder.BIG_ENDIAN);
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA) {
+                    return 1;
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return 1;
+                }
+                if (marker == 0xFFE1) {
+                    byte[] app1 = new byte[length];
+                    in.readFully(app1);
+                    int orientation = parseOrientation(app1);
+                    if (orientation != 1) {
+                        return orientation;
+                    }
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+        } catch (EOFException e) {
+            return 1;
+        } finally {
+            in.reset();
+        }
+    }
+
+    static int parseOrientation(byte[] app1) {
+        if (app1.length < 14 || !EXIF_HEADER.equals(new String(app1, 0, 6, StandardCharsets.ISO_8859_1))) {
+            return 1;
+        }
+        try {
+            ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+            tiff.order(tiff.getShort(0) == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            int ifd = tiff.getInt(4);
+            int entries = tiff.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((tiff.getShort(entry) & 0xFFFF) == 0x0112) {
+                    int orientation = tiff.getShort(entry + 8) & 0xFFFF;
+                    return orientation >= 1 && orientation <= 8 ? orientation : 1;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            //truncated or malformed Exif: treat as upright
+        }
+        return 1;
+    }
+
+    //random access straight over the buffer, so a mapped file is decoded without being copied onto the heap
+    private static final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+        private final ByteBuffer buffer;
+
+        ByteBufferImageInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (streamPos >= buffer.limit()) {
+                return -1;
+            }
+            return buffer.get((int) streamPos++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (length == 0) {
+                return 0;
+            }
+            if (streamPos >= buffer.limit()) {
+                return -1;
+            }
+            int count = (int) Math.min(length, buffer.limit() - streamPos);
+            buffer.get((int) streamPos, bytes, offset, count);
+            streamPos += count;
+            return count;
+        }
+
+        @Override
+        public long length() {
+            return buffer.limit();
+        }
+    }
+}
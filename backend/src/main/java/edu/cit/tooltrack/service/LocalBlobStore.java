@@ -0,0 +1,144 @@
+package edu.cit.tooltrack.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stores objects as files under tooltrack.storage.local.root, laid out by key like the S3 bucket.
+ * Writes go to a temp file that is renamed into place, so readers never see a partial object.
+ * Reads are memory-mapped, and /files serves objects with a zero-copy transfer, so on-prem
+ * deployments and benchmarks never pay S3 latency. Disk I/O runs on the calling thread.
+ */
+@Service
+@ConditionalOnProperty(name = "tooltrack.storage.type", havingValue = "local")
+public class LocalBlobStore implements BlobStore {
+
+    private static final String BUCKET_KEY = "tooltrack/";
+    private final Path root;
+    private final String publicUrl;
+
+    public LocalBlobStore(@Value("${tooltrack.storage.local.root:backend/storage}") String root,
+                          @Value("${tooltrack.storage.local.public-url:http://localhost:8080/files/}") String publicUrl) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.publicUrl = publicUrl.endsWith("/") ? publicUrl : publicUrl + "/";
+    }
+
+    @Override
+    public CompletableFuture<String> upload(File file, String folderPath, String uuidName) {
+        String key = objectKey(folderPath, uuidName);
+        try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return CompletableFuture.completedFuture(store(key, target -> {
+                //file-to-file transferTo stays in the kernel
+                long size = source.size();
+                for (long position = 0; position < size; ) {
+                    position += source.transferTo(position, size - position, target);
+                }
+            }));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Error occurred while storing the file: " + e.getMessage(), e));
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> upload(byte[] bytes, String folderPath, String uuidName) {
+        try {
+            return CompletableFuture.completedFuture(store(objectKey(folderPath, uuidName), target -> {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+            }));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Error occurred while storing the file: " + e.getMessage(), e));
+        }
+    }
+
+    //the mapping stays valid after the channel is closed and is released once the buffer is unreachable
+    @Override
+    public CompletableFuture<ByteBuffer> read(String folderPath, String uuidName, long maxBytes) {
+        try (FileChannel channel = FileChannel.open(resolve(objectKey(folderPath, uuidName)), StandardOpenOption.READ)) {
+            if (channel.size() > maxBytes) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Object " + uuidName + " is larger than " + maxBytes + " bytes"));
+            }
+            return CompletableFuture.completedFuture(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (NoSuchFileException e) {
+            return CompletableFuture.failedFuture(new NoSuchElementException("Object " + uuidName + " not found"));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> deleteImage(String uuidName, String folderPath) {
+        try {
+            boolean deleted = Files.deleteIfExists(resolve(objectKey(folderPath, uuidName)));
+            return CompletableFuture.completedFuture(deleted ? "Image deleted successfully" : "Image not found");
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture("Image not found");
+        }
+    }
+
+    @Override
+    public String objectKey(String folderPath, String uuidName) {
+        return BUCKET_KEY + folderPath + uuidName;
+    }
+
+    //a missing file counts as deleted, as it does for S3
+    @Override
+    public CompletableFuture<Map<String, String>> deleteObjects(List<String> keys) {
+        Map<String, String> failed = new HashMap<>();
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(resolve(key));
+            } catch (Exception e) {
+                failed.put(key, e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+        return CompletableFuture.completedFuture(failed);
+    }
+
+    //the file behind a key, for streaming it out; keys cannot escape the storage root
+    public Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid object key");
+        }
+        return path;
+    }
+
+    private String store(String key, FileWriter writer) throws IOException {
+        Path path = resolve(key);
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling("." + UUID.randomUUID() + ".tmp");
+        try {
+            try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                writer.write(target);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return publicUrl + key;
+    }
+
+    private interface FileWriter {
+        void write(FileChannel target) throws IOException;
+    }
+}
@@ -0,0 +1,115 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.Websocket.WebsocketConfiguration;
+import edu.cit.tooltrack.dto.NotificationMessageDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes stored notifications to WebSocket sessions off the request thread. A notification is only
+ * queued once the transaction that stored it commits, so nothing goes out for work that rolled back,
+ * and the caller never waits on message conversion or broker fan-out. A single dispatcher thread
+ * lingers briefly after the first queued notification so that a burst (e.g. a batch of approvals)
+ * goes out as one frame per recipient. When the bounded queue is full, notifications are dropped from
+ * the push path only: they are already in the inbox and reach the client on its next catch-up.
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tooltrack.notifications.dispatch-queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${tooltrack.notifications.dispatch-linger-ms:20}")
+    private long lingerMs;
+    @Value("${tooltrack.notifications.dispatch-max-batch:500}")
+    private int maxBatch;
+
+    private BlockingQueue<NotificationMessageDTO> queue;
+    private Thread dispatcher;
+    private Counter dropped;
+
+    //published by NotificationService once the notification is in the inbox
+    public record NotificationStored(NotificationMessageDTO message) {
+    }
+
+    @PostConstruct
+    void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        Gauge.builder("tooltrack.notifications.dispatch.queue", queue, BlockingQueue::size)
+                .description("Notifications waiting to be pushed").register(meterRegistry);
+        dropped = meterRegistry.counter("tooltrack.notifications.dispatch.dropped");
+        dispatcher = new Thread(this::run, "notification-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.interrupt();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStored(NotificationStored event) {
+        if (!queue.offer(event.message())) {
+            dropped.increment();
+            log.debug("Notification queue full; {} will get seq {} on catch-up", event.message().getUser_email(), event.message().getSeq());
+        }
+    }
+
+    private void run() {
+        List<NotificationMessageDTO> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < maxBatch) {
+                    NotificationMessageDTO next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Notification dispatch failed for {} notifications: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    //one frame per recipient, in the order the notifications were committed
+    void dispatch(List<NotificationMessageDTO> batch) {
+        Map<String, List<NotificationMessageDTO>> byUser = new LinkedHashMap<>();
+        for (NotificationMessageDTO message : batch) {
+            byUser.computeIfAbsent(message.getUser_email(), email -> new ArrayList<>()).add(message);
+        }
+        byUser.forEach((email, messages) ->
+                messagingTemplate.convertAndSendToUser(email, WebsocketConfiguration.NOTIFICATIONS_QUEUE, messages));
+    }
+}
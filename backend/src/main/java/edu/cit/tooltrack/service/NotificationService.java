@@ -1,12 +1,40 @@
 package edu.cit.tooltrack.service;
 
 import edu.cit.tooltrack.Websocket.NotificationSocketController;
+import edu.cit.tooltrack.Websocket.WebsocketConfiguration;
+import edu.cit.tooltrack.dto.CursorPage;
 import edu.cit.tooltrack.dto.NotificationMessageDTO;
+import edu.cit.tooltrack.entity.Notifications;
+import edu.cit.tooltrack.entity.User;
+import edu.cit.tooltrack.repository.NotificationRepostitory;
+import edu.cit.tooltrack.repository.NotificationSequenceRepository;
+import edu.cit.tooltrack.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Notifications are stored in the recipient's inbox with a per-user sequence number before they are
+ * pushed, so users who are offline do not lose them: a client that reconnects with the last seq it saw
+ * gets the missed ones replayed on its own session, and the full history is paged over REST. A
+ * scheduled job trims inboxes by age and by size. Live pushes go through {@link NotificationDispatcher}
+ * after commit. Every frame on /user/queue/notifications is a JSON array of notifications in seq order.
+ */
 @Service
 @Slf4j
 public class NotificationService {
@@ -15,10 +43,120 @@ public class NotificationService {
     private NotificationSocketController notificationSocketController;
 @Autowired
 private SimpMessagingTemplate messagingTemplate;
+    @Autowired
+    private NotificationRepostitory notificationRepo;
+    @Autowired
+    private NotificationSequenceRepository sequenceRepo;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${tooltrack.notifications.catch-up-limit:200}")
+    private int catchUpLimit;
+    @Value("${tooltrack.notifications.retention-days:90}")
+    private int retentionDays;
+    @Value("${tooltrack.notifications.max-per-user:500}")
+    private int maxPerUser;
+    @Value("${tooltrack.notifications.compaction-batch-size:1000}")
+    private int compactionBatchSize;
 
+    //joins the caller's transaction; the push to the recipient's own sessions happens only after it commits
+    @Transactional
     public void sendNotification(NotificationMessageDTO payload) {
-        log.info("Sending notification to websocket");
-        messagingTemplate.convertAndSend("/topic/notifications", payload);
+        User user = userRepository.findByEmail(payload.getUser_email());
+        if (user != null) {
+            payload.setSeq(store(user, payload).getSeq());
+        } else {
+            log.warn("No inbox for notification recipient {}", payload.getUser_email());
+        }
+        eventPublisher.publishEvent(new NotificationDispatcher.NotificationStored(payload));
+    }
+
+    private Notifications store(User user, NotificationMessageDTO payload) {
+        //the upsert holds the user's sequence row lock until commit, so concurrent sends get consecutive seqs
+        sequenceRepo.increment(user.getUser_id());
+        Notifications notification = new Notifications();
+        notification.setUser_id(user);
+        notification.setSeq(sequenceRepo.findLastSeq(user.getUser_id()));
+        notification.setTitle(payload.getToolName());
+        notification.setMessage(payload.getMessage());
+        notification.setStatus(payload.getStatus());
+        notification.setBorrow_date(payload.getBorrow_date());
+        notification.setDue_date(payload.getDue_date());
+        notification.setCreated_at(new Timestamp(System.currentTimeMillis()));
+        return notificationRepo.save(notification);
     }
 
+    //replays what the session missed as one frame, oldest first; clients drop seqs they already have, since live pushes may interleave
+    public void catchUp(String email, String sessionId, int lastSeq) {
+        User user = userRepository.findByEmail(email);
+        if (user == null) {
+            return;
+        }
+        List<NotificationMessageDTO> missed = notificationRepo.findAfterSeq(user.getUser_id(), lastSeq, Limit.of(catchUpLimit)).stream()
+                .map(notification -> toMessage(notification, email))
+                .toList();
+        if (!missed.isEmpty()) {
+            messagingTemplate.convertAndSendToUser(email, WebsocketConfiguration.NOTIFICATIONS_QUEUE, missed, sessionHeaders(sessionId));
+        }
+        if (missed.size() == catchUpLimit) {
+            log.debug("Catch-up for {} hit the limit of {}; the rest is in the inbox", email, catchUpLimit);
+        }
+    }
+
+    public CursorPage<NotificationMessageDTO> getInbox(String email, String cursor, Integer size) {
+        int pageSize = CursorPage.clampSize(size);
+        int beforeSeq = CursorPage.decode(cursor);
+        User user = userRepository.findByEmail(email);
+        if (user == null) {
+            throw new NoSuchElementException("User " + email + " not found");
+        }
+        List<NotificationMessageDTO> rows = notificationRepo.findInboxPage(user.getUser_id(), beforeSeq, Limit.of(pageSize + 1)).stream()
+                .map(notification -> toMessage(notification, email))
+                .toList();
+        return CursorPage.of(rows, pageSize, NotificationMessageDTO::getSeq);
+    }
+
+    //drops notifications past the retention period, then anything beyond each user's newest max-per-user; one batch per transaction
+    @Scheduled(fixedDelayString = "${tooltrack.notifications.compaction-interval-ms:3600000}")
+    public void compactInboxes() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - Duration.ofDays(retentionDays).toMillis());
+        int expired = 0;
+        int trimmed = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> notificationRepo.deleteCreatedBefore(cutoff, compactionBatchSize));
+            expired += deleted;
+        } while (deleted == compactionBatchSize);
+        do {
+            deleted = transactionTemplate.execute(status -> notificationRepo.deleteBeyondPerUserLimit(maxPerUser, compactionBatchSize));
+            trimmed += deleted;
+        } while (deleted == compactionBatchSize);
+        if (expired + trimmed > 0) {
+            log.info("Notification compaction removed {} expired and {} over-limit notifications", expired, trimmed);
+        }
+    }
+
+    //the session id header narrows a user destination to that one session
+    private static MessageHeaders sessionHeaders(String sessionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        return headers.getMessageHeaders();
+    }
+
+    private static NotificationMessageDTO toMessage(Notifications notification, String email) {
+        return NotificationMessageDTO.builder()
+                .toolName(notification.getTitle())
+                .message(notification.getMessage())
+                .status(notification.getStatus())
+                .borrow_date(notification.getBorrow_date())
+                .due_date(notification.getDue_date())
+                .user_email(email)
+                .seq(notification.getSeq())
+                .build();
+    }
 }
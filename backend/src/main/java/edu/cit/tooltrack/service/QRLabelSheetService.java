@@ -0,0 +1,192 @@
+package edu.cit.tooltrack.service;
+
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import edu.cit.tooltrack.entity.ToolItems;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Printable QR label sheets for onboarding a batch of tools in one request. QR codes are encoded in
+ * parallel on a bounded pool; tools that have no stored QR image yet also get their PNG uploaded,
+ * and all of those are saved to tool_items in a single batch. The sheet is an A4 PDF with
+ * {@value #COLUMNS} x {@value #ROWS} labels per page, each QR drawn as vector modules so it prints
+ * sharp at any scale.
+ */
+@Service
+@Slf4j
+public class QRLabelSheetService {
+
+    static final int COLUMNS = 3;
+    static final int ROWS = 4;
+    private static final float MARGIN = 36;
+    private static final float QR_POINTS = 144; //2 inches, comfortably scannable
+    private static final int QUIET_ZONE = 4;
+
+    @Autowired
+    private QRcodeService qrcodeService;
+    @Autowired
+    private ToolItemService toolItemService;
+
+    @Value("${tooltrack.qr.label-threads:4}")
+    private int threads;
+    @Value("${tooltrack.qr.max-labels:1000}")
+    private int maxLabels;
+
+    private ExecutorService executor;
+
+    public record Label(ToolItems tool, ByteMatrix modules) {
+    }
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "qr-labels");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    //completes once every label is encoded and the missing QR images are uploaded and saved
+    public CompletableFuture<List<Label>> prepareLabels(List<ToolItems> tools) {
+        if (tools.size() > maxLabels) {
+            throw new IllegalArgumentException("At most " + maxLabels + " labels per sheet");
+        }
+        List<CompletableFuture<Label>> labels = tools.stream()
+                .map(tool -> CompletableFuture.supplyAsync(
+                        () -> new Label(tool, qrcodeService.encodeModules(QRcodeService.toolPayload(tool.getTool_id()))), executor))
+                .toList();
+        List<CompletableFuture<ToolItems>> uploads = tools.stream()
+                .filter(tool -> tool.getQr_code() == null || tool.getQr_code().isBlank())
+                .map(this::uploadQrImage)
+                .toList();
+        CompletableFuture<Void> saved = CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new))
+                .thenRunAsync(() -> {
+                    List<ToolItems> uploaded = uploads.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
+                    if (!uploaded.isEmpty()) {
+                        toolItemService.saveQrImages(uploaded);
+                    }
+                }, executor);
+        return CompletableFuture.allOf(labels.toArray(CompletableFuture[]::new))
+                .thenCombine(saved, (encoded, done) -> labels.stream().map(CompletableFuture::join).toList());
+    }
+
+    //completes with the tool's new qr fields, or null if the upload failed (the label still prints)
+    private CompletableFuture<ToolItems> uploadQrImage(ToolItems tool) {
+        String uuidName = UUID.randomUUID() + "_" + tool.getTool_id();
+        return CompletableFuture.supplyAsync(() -> qrcodeService.createQR(QRcodeService.toolPayload(tool.getTool_id())), executor)
+                .thenCompose(png -> qrcodeService.uploadImage(png, uuidName))
+                .thenApply(imageUrl -> {
+                    if (imageUrl == null) {
+                        log.warn("QR image upload failed for tool {}", tool.getTool_id());
+                        return null;
+                    }
+                    ToolItems update = new ToolItems();
+                    update.setTool_id(tool.getTool_id());
+                    update.setQr_code(imageUrl);
+                    update.setQr_code_name(uuidName);
+                    return update;
+                });
+    }
+
+    public void writePdf(List<Label> labels, OutputStream out) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDFont font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            PDRectangle pageSize = PDRectangle.A4;
+            float cellWidth = (pageSize.getWidth() - 2 * MARGIN) / COLUMNS;
+            float cellHeight = (pageSize.getHeight() - 2 * MARGIN) / ROWS;
+            int perPage = COLUMNS * ROWS;
+
+            for (int start = 0; start < labels.size(); start += perPage) {
+                PDPage page = new PDPage(pageSize);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    for (int i = start; i < Math.min(start + perPage, labels.size()); i++) {
+                        int slot = i - start;
+                        float x = MARGIN + (slot % COLUMNS) * cellWidth;
+                        float top = pageSize.getHeight() - MARGIN - (slot / COLUMNS) * cellHeight;
+                        drawLabel(content, font, labels.get(i), x, top, cellWidth);
+                    }
+                }
+            }
+            document.save(out);
+        }
+    }
+
+    private static void drawLabel(PDPageContentStream content, PDFont font, Label label, float x, float top, float cellWidth) throws IOException {
+        ByteMatrix modules = label.modules();
+        float module = QR_POINTS / (modules.getWidth() + 2 * QUIET_ZONE);
+        float qrX = x + (cellWidth - QR_POINTS) / 2;
+        float qrTop = top - 8;
+
+        //one rectangle per horizontal run of dark modules keeps the content stream small
+        for (int row = 0; row < modules.getHeight(); row++) {
+            int runStart = -1;
+            for (int column = 0; column <= modules.getWidth(); column++) {
+                boolean dark = column < modules.getWidth() && modules.get(column, row) == 1;
+                if (dark && runStart < 0) {
+                    runStart = column;
+                } else if (!dark && runStart >= 0) {
+                    content.addRect(qrX + (QUIET_ZONE + runStart) * module, qrTop - (QUIET_ZONE + row + 1) * module,
+                            (column - runStart) * module, module);
+                    runStart = -1;
+                }
+            }
+        }
+        content.fill();
+
+        ToolItems tool = label.tool();
+        float textWidth = cellWidth - 12;
+        showText(content, font, 10, fit(font, 10, printable(tool.getName()), textWidth), x + 6, qrTop - QR_POINTS - 10);
+        String details = "ID " + tool.getTool_id() + (tool.getLocation() != null ? " | " + tool.getLocation() : "");
+        showText(content, font, 8, fit(font, 8, printable(details), textWidth), x + 6, qrTop - QR_POINTS - 22);
+    }
+
+    private static void showText(PDPageContentStream content, PDFont font, float size, String text, float x, float y) throws IOException {
+        content.beginText();
+        content.setFont(font, size);
+        content.newLineAtOffset(x, y);
+        content.showText(text);
+        content.endText();
+    }
+
+    //the standard Helvetica font only covers WinAnsi (Latin-1), so anything else prints as '?'
+    private static String printable(String text) {
+        return text == null ? "" : text.replaceAll("[^\\x20-\\x7E\\xA0-\\xFF]", "?");
+    }
+
+    private static String fit(PDFont font, float size, String text, float maxWidth) throws IOException {
+        if (font.getStringWidth(text) / 1000 * size <= maxWidth) {
+            return text;
+        }
+        String truncated = text;
+        while (!truncated.isEmpty() && font.getStringWidth(truncated + "...") / 1000 * size > maxWidth) {
+            truncated = truncated.substring(0, truncated.length() - 1);
+        }
+        return truncated + "...";
+    }
+}
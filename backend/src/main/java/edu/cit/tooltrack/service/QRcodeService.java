@@ -1,50 +1,108 @@
 package edu.cit.tooltrack.service;
 
-import com.genqrcode.api.GenQRCodeApi;
-import com.genqrcode.api.TextQRCodeBuilder;
-import com.genqrcode.customization.Color;
-import com.genqrcode.customization.Format;
-import com.genqrcode.customization.SquaresShape;
-import com.genqrcode.data.TextQRCodeData;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class QRcodeService {
 
-    private GenQRCodeApi genQRCodeApi;
+    public static final int QR_SIZE = 500;
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(
+            EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M,
+            EncodeHintType.CHARACTER_SET, "UTF-8");
+
+    //per-thread scratch reused across QR codes: the 1-bit canvas, the PNG writer and its output buffer
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     @Autowired
-    private S3Service s3Service;
+    private BlobStore blobStore;
 
-    public QRcodeService() {
-        this.genQRCodeApi = new GenQRCodeApi(System.getenv("QR_DYNAMIC_API"));
+    //500x500 black-on-white PNG, encoded in-process (no network call)
+    public byte[] createQR(String data) {
+        try {
+            BitMatrix matrix = new QRCodeWriter().encode(data, BarcodeFormat.QR_CODE, QR_SIZE, QR_SIZE, HINTS);
+            return SCRATCH.get().toPng(matrix);
+        } catch (WriterException | IOException e) {
+            throw new RuntimeException("Failed to generate QR code: " + e.getMessage(), e);
+        }
     }
 
-    public byte[] createQR(String data) {
+    //module matrix (1 = dark, no quiet zone) for vector rendering, e.g. on printed label sheets
+    public ByteMatrix encodeModules(String data) {
         try {
-            return genQRCodeApi.textQRCode()
-                    .format(Format.PNG)
-                    .data(TextQRCodeData.withText(data))
-                    .width(500)
-                    .height(500)
-                    .build()
-                    .get();
-        } catch (Exception e) {
+            return Encoder.encode(data, ErrorCorrectionLevel.M, HINTS).getMatrix();
+        } catch (WriterException e) {
             throw new RuntimeException("Failed to generate QR code: " + e.getMessage(), e);
         }
     }
 
-    public String uploadImage(MultipartFile file, String uuidName) {
+    //the payload scanners resolve back to a tool
+    public static String toolPayload(int toolId) {
+        return "tool_id: " + toolId;
+    }
+
+    //completes with null when the upload fails; the QR png is small, so it is sent from memory instead of a temp file
+    public CompletableFuture<String> uploadImage(MultipartFile file, String uuidName) {
         try {
-            File tempFile = File.createTempFile("upload", uuidName);
-            file.transferTo(tempFile);
-            tempFile.deleteOnExit();
-            return s3Service.upload(tempFile, "QR_Images/", uuidName + ".jpg");
+            return uploadImage(file.getBytes(), uuidName);
         } catch (Exception error) {
-            return null;
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public CompletableFuture<String> uploadImage(byte[] png, String uuidName) {
+        return blobStore.upload(png, "QR_Images/", uuidName + ".jpg")
+                .exceptionally(error -> null);
+    }
+
+    private static final class Scratch {
+        private final BufferedImage image = new BufferedImage(QR_SIZE, QR_SIZE, BufferedImage.TYPE_BYTE_BINARY);
+        private final byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        private final int stride = (QR_SIZE + 7) / 8;
+        private final ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        private final ByteArrayOutputStream png = new ByteArrayOutputStream(16 * 1024);
+
+        byte[] toPng(BitMatrix matrix) throws IOException {
+            //in the default binary palette a set bit is white
+            Arrays.fill(pixels, (byte) 0xFF);
+            for (int y = 0; y < QR_SIZE; y++) {
+                int row = y * stride;
+                for (int x = 0; x < QR_SIZE; x++) {
+                    if (matrix.get(x, y)) {
+                        pixels[row + (x >> 3)] &= (byte) ~(0x80 >> (x & 7));
+                    }
+                }
+            }
+            png.reset();
+            try (ImageOutputStream out = new MemoryCacheImageOutputStream(png)) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), null);
+            } finally {
+                writer.reset();
+            }
+            return png.toByteArray();
         }
     }
 }
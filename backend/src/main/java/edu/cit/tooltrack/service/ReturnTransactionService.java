@@ -4,23 +4,32 @@ import edu.cit.tooltrack.entity.ReturnTransactionImage;
 import edu.cit.tooltrack.repository.ReturnTransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class ReturnTransactionService {
 
     @Autowired
     private ReturnTransactionRepository returnTransactionRepo;
+    @Autowired
+    private ImageBlobService imageBlobService;
 
+    //the uploaded image is only referenced once the saved record holds it
+    @Transactional
     public ReturnTransactionImage add(ReturnTransactionImage returnTransactionImage) {
-        return returnTransactionRepo.save(returnTransactionImage);
+        ReturnTransactionImage saved = returnTransactionRepo.save(returnTransactionImage);
+        imageBlobService.attach("ReturnedTool_Images/", saved.getImage_name());
+        return saved;
     }
 
 
+    @Transactional
     public void delete(int id) {
-        if (returnTransactionRepo.existsById(id)) {
-            returnTransactionRepo.deleteById(id);
-        } else {
-            throw new RuntimeException("ReturnTransactionImage not found");
+        ReturnTransactionImage returnImage = returnTransactionRepo.findById(id)
+                .orElseThrow(() -> new RuntimeException("ReturnTransactionImage not found"));
+        returnTransactionRepo.delete(returnImage);
+        if (returnImage.getImage_name() != null) {
+            imageBlobService.release("ReturnedTool_Images/", returnImage.getImage_name());
         }
     }
 
@@ -0,0 +1,223 @@
+package edu.cit.tooltrack.service;
+
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams a resumable upload straight into an S3 multipart upload without touching local disk.
+ * Consecutive client chunks are grouped into parts of at least {@link #MIN_PART_SIZE} (the S3 minimum
+ * for all but the last part); a part is buffered in memory only until its last chunk arrives and is
+ * then sent with UploadPart (non-blocking), so completion is just CompleteMultipartUpload.
+ * <p>
+ * The whole-file SHA-256 is computed as parts finish in order; a part that finishes ahead of its
+ * predecessors is kept until they are digested. Every part buffer is reserved from a {@link BufferBudget}
+ * shared by all sessions, so the bytes held across concurrent uploads stay under one global limit: a
+ * chunk that would start a part beyond it is refused with {@link RejectedExecutionException} and the
+ * client retries it later, by which time other parts have gone to S3 and released their buffers.
+ */
+class S3MultipartUploadSink implements UploadSink {
+
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Service s3Service;
+    private final String directory;
+    private final String imageName;
+    private final String s3UploadId;
+    private final long size;
+    private final int chunkSize;
+    private final int chunksPerPart;
+    private final Part[] parts;
+    private final MessageDigest digest;
+    private final BufferBudget budget;
+    private int nextPartToDigest;
+    private boolean aborted;
+
+    private S3MultipartUploadSink(S3Service s3Service, String directory, String imageName, String s3UploadId, long size, int chunkSize,
+                                  BufferBudget budget) {
+        this.s3Service = s3Service;
+        this.budget = budget;
+        this.directory = directory;
+        this.imageName = imageName;
+        this.s3UploadId = s3UploadId;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.chunksPerPart = Math.max(1, (MIN_PART_SIZE + chunkSize - 1) / chunkSize);
+        long partSize = (long) chunksPerPart * chunkSize;
+        this.parts = new Part[(int) ((size + partSize - 1) / partSize)];
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static CompletableFuture<S3MultipartUploadSink> start(S3Service s3Service, String directory, String imageName, long size, int chunkSize,
+                                                          BufferBudget budget) {
+        return s3Service.createMultipartUpload(directory, imageName)
+                .thenApply(s3UploadId -> new S3MultipartUploadSink(s3Service, directory, imageName, s3UploadId, size, chunkSize, budget));
+    }
+
+    @Override
+    public CompletableFuture<Void> write(int chunkIndex, long offset, int length, InputStream in) throws IOException {
+        int partIndex = chunkIndex / chunksPerPart;
+        //reserved before the body is read, so a refused chunk costs no memory
+        synchronized (this) {
+            if (aborted) {
+                throw new IllegalStateException("Upload was aborted");
+            }
+            if (parts[partIndex] == null) {
+                int partLength = partLength(partIndex);
+                if (!budget.tryReserve(partLength)) {
+                    throw new RejectedExecutionException("Upload buffers are full; retry chunk " + chunkIndex + " later");
+                }
+                parts[partIndex] = new Part(partLength, chunksInPart(partIndex));
+            }
+        }
+        byte[] chunk = in.readNBytes(length);
+        if (chunk.length != length) {
+            throw new IllegalArgumentException("Chunk " + chunkIndex + " must be exactly " + length + " bytes");
+        }
+        UploadSink.requireEndOfStream(in, chunkIndex, length);
+
+        byte[] ready;
+        synchronized (this) {
+            Part part = parts[partIndex];
+            if (aborted) {
+                throw new IllegalStateException("Upload was aborted");
+            }
+            if (part.completed != null) {
+                return CompletableFuture.completedFuture(null); //retry of a chunk whose part is already in S3
+            }
+            int slot = chunkIndex - partIndex * chunksPerPart;
+            System.arraycopy(chunk, 0, part.bytes, slot * chunkSize, length);
+            part.received.set(slot);
+            if (part.received.cardinality() < part.chunkCount || part.uploading) {
+                return CompletableFuture.completedFuture(null);
+            }
+            part.uploading = true;
+            ready = part.bytes;
+        }
+
+        return s3Service.uploadPart(directory, imageName, s3UploadId, partIndex + 1, ready)
+                .whenComplete((completed, e) -> partFinished(partIndex, completed))
+                .thenApply(completed -> null);
+    }
+
+    private synchronized void partFinished(int partIndex, CompletedPart completed) {
+        Part part = parts[partIndex];
+        part.uploading = false;
+        if (completed == null || aborted) {
+            return; //failed: a retried chunk of this part sends it again
+        }
+        part.completed = completed;
+        while (nextPartToDigest < parts.length && parts[nextPartToDigest] != null && parts[nextPartToDigest].completed != null) {
+            digest.update(parts[nextPartToDigest].bytes);
+            releaseBuffer(parts[nextPartToDigest]);
+            nextPartToDigest++;
+        }
+    }
+
+    @Override
+    public synchronized CompletableFuture<String> finish(String expectedSha256) {
+        if (nextPartToDigest != parts.length) {
+            throw new IllegalStateException("Not every part has been uploaded");
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        if (expectedSha256 != null && !expectedSha256.isBlank() && !expectedSha256.equalsIgnoreCase(sha256)) {
+            abort();
+            throw new IllegalStateException("Checksum mismatch");
+        }
+        return CompletableFuture.completedFuture(sha256);
+    }
+
+    //the key was fixed by CreateMultipartUpload, so the object keeps its upload name
+    @Override
+    public synchronized CompletableFuture<StoredObject> store(String contentName) {
+        List<CompletedPart> completedParts = new ArrayList<>(parts.length);
+        for (Part part : parts) {
+            completedParts.add(part.completed);
+        }
+        return s3Service.completeMultipartUpload(directory, imageName, s3UploadId, completedParts)
+                .thenApply(imageUrl -> new StoredObject(imageName, imageUrl));
+    }
+
+    @Override
+    public CompletableFuture<Void> abort() {
+        synchronized (this) {
+            aborted = true;
+            for (Part part : parts) {
+                if (part != null) {
+                    releaseBuffer(part);
+                }
+            }
+        }
+        return s3Service.abortMultipartUpload(directory, imageName, s3UploadId);
+    }
+
+    private void releaseBuffer(Part part) {
+        if (part.bytes != null) {
+            budget.release(part.bytes.length);
+            part.bytes = null;
+        }
+    }
+
+    private int partLength(int partIndex) {
+        long partSize = (long) chunksPerPart * chunkSize;
+        return (int) Math.min(partSize, size - partIndex * partSize);
+    }
+
+    private int chunksInPart(int partIndex) {
+        return (partLength(partIndex) + chunkSize - 1) / chunkSize;
+    }
+
+    //part buffer bytes held in memory by every multipart upload of this node
+    static class BufferBudget {
+        private final long limit;
+        private final AtomicLong used = new AtomicLong();
+
+        BufferBudget(long limit) {
+            this.limit = limit;
+        }
+
+        boolean tryReserve(long bytes) {
+            long current;
+            do {
+                current = used.get();
+                if (current + bytes > limit) {
+                    return false;
+                }
+            } while (!used.compareAndSet(current, current + bytes));
+            return true;
+        }
+
+        void release(long bytes) {
+            used.addAndGet(-bytes);
+        }
+
+        long used() {
+            return used.get();
+        }
+    }
+
+    private static class Part {
+        private byte[] bytes;
+        private final int chunkCount;
+        private final BitSet received;
+        private boolean uploading;
+        private CompletedPart completed;
+
+        Part(int length, int chunkCount) {
+            this.bytes = new byte[length];
+            this.chunkCount = chunkCount;
+            this.received = new BitSet(chunkCount);
+        }
+    }
+}
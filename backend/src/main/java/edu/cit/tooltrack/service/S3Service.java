@@ -1,116 +1,283 @@
 package edu.cit.tooltrack.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.cit.tooltrack.dto.PresignedUrlDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.S3Utilities;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.awscore.presigner.PresignedRequest;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 
 //NOTE: Need revision in future
 @Service
-public class S3Service {
+@ConditionalOnProperty(name = "tooltrack.storage.type", havingValue = "s3", matchIfMissing = true)
+public class S3Service implements BlobStore {
 
-    private final String BUCKET_NAME = "tooltrack-s3"; // Change this
+    @Value("${tooltrack.s3.bucket:tooltrack-s3}")
+    private String bucketName = "tooltrack-s3";
     private final String BUCKET_KEY = "tooltrack/";
-    private S3Client s3;
-
-    private S3Service() {
-        if (s3 == null) {
-            s3 = S3Client.builder()
-                    .region(Region.AP_SOUTHEAST_1)
-                    .credentialsProvider(StaticCredentialsProvider.create(
-                            AwsBasicCredentials.create(
-                                    System.getenv("AWS_ACCESS_KEY"),
-                                            System.getenv("AWS_ACCESS_SECRET_KEY")
-                            )
-                    ))
-                    .build();
+    private static final int MAX_DELETE_KEYS = 1000;
+    //one ListParts page; direct multipart uploads are sized to stay within it
+    static final int MAX_LISTED_PARTS = 1000;
+    private final S3AsyncClient s3;
+    private final S3Presigner presigner;
+    private final Duration uploadUrlTtl;
+    private final Duration downloadUrlTtl;
+    //presigned GETs are handed out again until refreshMargin before they expire, so clients can cache them too
+    private final Cache<String, PresignedUrlDTO> downloadUrls;
+
+    //all network calls are non-blocking and complete on the SDK's future-completion executor; presigning is local
+    public S3Service(S3AsyncClient s3, S3Presigner presigner,
+                     @Value("${tooltrack.s3.presign-upload-minutes:15}") long uploadMinutes,
+                     @Value("${tooltrack.s3.presign-download-minutes:60}") long downloadMinutes,
+                     @Value("${tooltrack.s3.presign-refresh-margin-minutes:5}") long refreshMarginMinutes,
+                     @Value("${tooltrack.s3.presign-cache-size:10000}") long cacheSize) {
+        if (refreshMarginMinutes >= downloadMinutes) {
+            throw new IllegalArgumentException("tooltrack.s3.presign-refresh-margin-minutes must be less than presign-download-minutes");
         }
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.uploadUrlTtl = Duration.ofMinutes(uploadMinutes);
+        this.downloadUrlTtl = Duration.ofMinutes(downloadMinutes);
+        this.downloadUrls = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(downloadMinutes - refreshMarginMinutes))
+                .maximumSize(cacheSize)
+                .build();
     }
 
-    public String upload(File file, String folderPath, String uuidName) {
-        try {
-            String s3Key = BUCKET_KEY + folderPath + uuidName;
+    @Override
+    public CompletableFuture<String> upload(File file, String folderPath, String uuidName) {
+        return putObject(AsyncRequestBody.fromFile(file), folderPath, uuidName);
+    }
 
-            PutObjectRequest request = PutObjectRequest.builder()
-                    .bucket(BUCKET_NAME)
-                    .key(s3Key)
-                    .contentType(getContentType(uuidName))
-                    .build();
+    @Override
+    public CompletableFuture<String> upload(byte[] bytes, String folderPath, String uuidName) {
+        return putObject(AsyncRequestBody.fromBytes(bytes), folderPath, uuidName);
+    }
 
-            s3.putObject(request, RequestBody.fromFile(file));
+    private CompletableFuture<String> putObject(AsyncRequestBody body, String folderPath, String uuidName) {
+        String s3Key = BUCKET_KEY + folderPath + uuidName;
 
-            S3Utilities s3Utilities = s3.utilities();
-            String objectUrl = s3Utilities.getUrl(builder ->
-                    builder.bucket(BUCKET_NAME).key(s3Key)
-            ).toString();
-            return objectUrl;
-        } catch (Exception e) {
-            System.out.println("Error occurred while uploading the file to S3: " + e.getMessage());
-            throw new RuntimeException("Error occurred while uploading the file to S3: " + e.getMessage(), e);
-        }
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .contentType(BlobStore.contentType(uuidName))
+                .build();
+
+        return s3.putObject(request, body)
+                .thenApply(response -> objectUrl(s3Key))
+                .exceptionally(e -> {
+                    throw new RuntimeException("Error occurred while uploading the file to S3: " + e.getMessage(), e);
+                });
     }
 
-    public String deleteImage(String uuidName, String folderPath) {
-        try {
-            String s3Key = BUCKET_KEY + folderPath + uuidName;
-            DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
-                    .bucket(BUCKET_NAME)
+    //Multipart upload: parts are sent as they arrive and the object only appears on completeMultipartUpload
+    public CompletableFuture<String> createMultipartUpload(String folderPath, String uuidName) {
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(BUCKET_KEY + folderPath + uuidName)
+                .contentType(BlobStore.contentType(uuidName))
+                .build();
+        return s3.createMultipartUpload(request).thenApply(CreateMultipartUploadResponse::uploadId);
+    }
+
+    //partNumber starts at 1; every part except the last must be at least 5 MiB
+    public CompletableFuture<CompletedPart> uploadPart(String folderPath, String uuidName, String uploadId, int partNumber, byte[] bytes) {
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(BUCKET_KEY + folderPath + uuidName)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) bytes.length)
+                .build();
+        return s3.uploadPart(request, AsyncRequestBody.fromBytes(bytes))
+                .thenApply(response -> CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+    }
+
+    public CompletableFuture<String> completeMultipartUpload(String folderPath, String uuidName, String uploadId, List<CompletedPart> parts) {
+        String s3Key = BUCKET_KEY + folderPath + uuidName;
+        CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build();
+        return s3.completeMultipartUpload(request).thenApply(response -> objectUrl(s3Key));
+    }
+
+    public CompletableFuture<Void> abortMultipartUpload(String folderPath, String uuidName, String uploadId) {
+        AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(BUCKET_KEY + folderPath + uuidName)
+                .uploadId(uploadId)
+                .build();
+        return s3.abortMultipartUpload(request).thenApply(response -> null);
+    }
+
+    //completes with the object's URL, or fails with NoSuchElementException if nothing was stored under the key
+    public CompletableFuture<String> headObject(String folderPath, String uuidName) {
+        String s3Key = BUCKET_KEY + folderPath + uuidName;
+        HeadObjectRequest request = HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .build();
+        return s3.headObject(request)
+                .handle((response, e) -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof NoSuchKeyException) {
+                        throw new NoSuchElementException("Object " + uuidName + " not found");
+                    } else if (cause != null) {
+                        throw new CompletionException(cause);
+                    }
+                    return objectUrl(s3Key);
+                });
+    }
+
+    //the parts S3 has received for a multipart upload, e.g. one the client sent through presigned part URLs, with their sizes
+    public CompletableFuture<List<Part>> listParts(String folderPath, String uuidName, String uploadId) {
+        ListPartsRequest request = ListPartsRequest.builder()
+                .bucket(bucketName)
+                .key(BUCKET_KEY + folderPath + uuidName)
+                .uploadId(uploadId)
+                .maxParts(MAX_LISTED_PARTS)
+                .build();
+        return s3.listParts(request).thenApply(ListPartsResponse::parts);
+    }
+
+    //single PUT straight from the client; S3 rejects a body whose length or SHA-256 (hex) differs from what was signed
+    public PresignedUrlDTO presignPut(String folderPath, String uuidName, long size, String sha256Hex) {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(BUCKET_KEY + folderPath + uuidName)
+                .contentType(BlobStore.contentType(uuidName))
+                .contentLength(size)
+                .checksumSHA256(Base64.getEncoder().encodeToString(HexFormat.of().parseHex(sha256Hex)))
+                .build();
+        return toDTO(presigner.presignPutObject(presign -> presign.signatureDuration(uploadUrlTtl).putObjectRequest(request)));
+    }
+
+    //the length is signed like the single PUT's, so S3 rejects a part of any other size
+    public PresignedUrlDTO presignUploadPart(String folderPath, String uuidName, String uploadId, int partNumber, long length) {
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(BUCKET_KEY + folderPath + uuidName)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(length)
+                .build();
+        return toDTO(presigner.presignUploadPart(presign -> presign.signatureDuration(uploadUrlTtl).uploadPartRequest(request)));
+    }
+
+    //cached per key, so every read within the TTL gets the same URL and signing stays off the hot path
+    public PresignedUrlDTO presignGet(String folderPath, String uuidName) {
+        return downloadUrls.get(BUCKET_KEY + folderPath + uuidName, s3Key -> {
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(bucketName)
                     .key(s3Key)
                     .build();
-            s3.deleteObject(deleteObjectRequest);
-            return "Image deleted successfully";
-        }catch (Exception e){
-            return "Image not found";
-        }
+            return toDTO(presigner.presignGetObject(presign -> presign.signatureDuration(downloadUrlTtl).getObjectRequest(request)));
+        });
     }
 
+    //host is set by the HTTP client itself, so only the other signed headers are handed to callers
+    private static PresignedUrlDTO toDTO(PresignedRequest presigned) {
+        Map<String, String> headers = new HashMap<>();
+        presigned.signedHeaders().forEach((name, values) -> {
+            if (!name.equalsIgnoreCase("host")) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return new PresignedUrlDTO(presigned.url().toString(), presigned.httpRequest().method().name(), headers, presigned.expiration());
+    }
 
-    public String getImage(String s3Key, String imagePath) {
-        try {
-            String fullS3Key = BUCKET_KEY + imagePath + "/" + s3Key;
+    //ranged to one byte past the limit, so an oversized object never lands in memory whole
+    @Override
+    public CompletableFuture<ByteBuffer> read(String folderPath, String uuidName, long maxBytes) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(BUCKET_KEY + folderPath + uuidName)
+                .range("bytes=0-" + maxBytes)
+                .build();
+        return s3.getObject(request, AsyncResponseTransformer.toBytes()).thenApply(bytes -> {
+            if (bytes.asByteArrayUnsafe().length > maxBytes) {
+                throw new IllegalArgumentException("Object " + uuidName + " is larger than " + maxBytes + " bytes");
+            }
+            return bytes.asByteBuffer();
+        });
+    }
 
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(BUCKET_NAME)
-                    .key(fullS3Key)
-                    .build();
+    @Override
+    public CompletableFuture<String> deleteImage(String uuidName, String folderPath) {
+        String s3Key = BUCKET_KEY + folderPath + uuidName;
+        DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .build();
+        return s3.deleteObject(deleteObjectRequest)
+                .handle((response, e) -> e == null ? "Image deleted successfully" : "Image not found");
+    }
 
-            S3Utilities s3Utilities = s3.utilities();
-            String objectUrl = s3Utilities.getUrl(builder ->
-                    builder.bucket(BUCKET_NAME).key(fullS3Key)
-            ).toString();
+    @Override
+    public String objectKey(String folderPath, String uuidName) {
+        return BUCKET_KEY + folderPath + uuidName;
+    }
 
-            return objectUrl;
-        } catch (Exception e) {
-            System.err.println("Error fetching image: " + e.getMessage());
-            return null;
+    //DeleteObjects takes up to 1000 keys per call
+    @Override
+    public CompletableFuture<Map<String, String>> deleteObjects(List<String> s3Keys) {
+        List<CompletableFuture<DeleteObjectsResponse>> calls = new ArrayList<>();
+        for (int from = 0; from < s3Keys.size(); from += MAX_DELETE_KEYS) {
+            List<ObjectIdentifier> objects = s3Keys.subList(from, Math.min(from + MAX_DELETE_KEYS, s3Keys.size())).stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+            DeleteObjectsRequest request = DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build();
+            calls.add(s3.deleteObjects(request));
         }
+        return CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            Map<String, String> failed = new HashMap<>();
+            for (CompletableFuture<DeleteObjectsResponse> call : calls) {
+                for (S3Error error : call.join().errors()) {
+                    failed.put(error.key(), error.code() + ": " + error.message());
+                }
+            }
+            return failed;
+        });
     }
 
-
-    private static byte[] decodeBase64(String base64String) {
-        return Base64.getDecoder().decode(base64String);
+    private String objectUrl(String s3Key) {
+        return s3.utilities().getUrl(builder -> builder.bucket(bucketName).key(s3Key)).toString();
     }
 
-    // Get Content Type Based on File Extension
-    private static String getContentType(String fileName) {
-        if (fileName.endsWith(".png")) {
-            return "image/png";
-        } else if (fileName.endsWith(".jpg") || fileName.endsWith(".jpeg")) {
-            return "image/jpeg";
-        } else if (fileName.endsWith(".gif")) {
-            return "image/gif";
-        } else {
-            return "application/octet-stream"; // Default if unknown
+
+    //presigned, so it also works once the bucket is no longer publicly readable
+    public String getImage(String s3Key, String imagePath) {
+        try {
+            return presignGet(imagePath + "/", s3Key).getUrl();
+        } catch (Exception e) {
+            System.err.println("Error fetching image: " + e.getMessage());
+            return null;
         }
     }
 
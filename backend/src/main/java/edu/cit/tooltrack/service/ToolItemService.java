@@ -1,5 +1,7 @@
 package edu.cit.tooltrack.service;
 
+import edu.cit.tooltrack.config.CacheConfig;
+import edu.cit.tooltrack.dto.CursorPage;
 import edu.cit.tooltrack.dto.ToolBorrowDTO;
 import edu.cit.tooltrack.dto.TransactionsDTO;
 import edu.cit.tooltrack.entity.ToolItems;
@@ -7,14 +9,26 @@ import edu.cit.tooltrack.entity.ToolTransaction;
 import edu.cit.tooltrack.entity.User;
 import edu.cit.tooltrack.repository.ToolItemRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.tools.Tool;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -26,11 +40,26 @@ public class ToolItemService {
     @Autowired
     private ImageChunkUploader imageChunkUploader;
     @Autowired
-    private S3Service s3Service;
+    private CleanupJobService cleanupJobService;
+    @Autowired
+    private ImageBlobService imageBlobService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+
+    private final CachedCounter totalTools = new CachedCounter(() -> toolItemRepository.count());
 
     public ToolItems addToolItem(ToolItems toolItems) {
         try {
-            toolItemRepository.save(toolItems);
+            //the uploaded image is only referenced once a saved tool holds it
+            transactionTemplate.executeWithoutResult(status -> {
+                toolItemRepository.save(toolItems);
+                imageBlobService.attach("Tool_Images/", toolItems.getImage_name());
+            });
+            totalTools.increment();
             return toolItemRepository.findLatestToolItem();
         }catch (Exception error){
             System.out.println(error.getMessage());
@@ -39,6 +68,7 @@ public class ToolItemService {
     }
 
 
+    @Cacheable(cacheNames = CacheConfig.TOOL_ITEMS, key = "#id", unless = "#result == null")
     public ToolItems getToolItem(int id) {
         return toolItemRepository.findById(id).orElse(null);
     }
@@ -47,22 +77,68 @@ public class ToolItemService {
         return toolItemRepository.findAll();
     }
 
+    public CursorPage<ToolItems> getItemsPage(String cursor, Integer size) {
+        int pageSize = CursorPage.pageSize(cursor, size);
+        List<ToolItems> rows = toolItemRepository.findPageAfter(CursorPage.decode(cursor), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, ToolItems::getTool_id);
+    }
+
     public ToolItems addQrImage(int toolId, String qr_url, String qr_name) {
         try {
             ToolItems old_tool = toolItemRepository.findById(toolId).orElse(null);
             old_tool.setQr_code(qr_url);
             old_tool.setQr_code_name(qr_name);
-            return toolItemRepository.save(old_tool);
+            ToolItems saved = toolItemRepository.save(old_tool);
+            eventPublisher.publishEvent(new ToolItemChanged(toolId));
+            return saved;
         } catch (Exception e) {
             return null;
         }
     }
 
+    //label sheets: explicit ids win, then category, then location; ordered by id so sheets print predictably
+    public List<ToolItems> getToolItemsForLabels(String category, String location, List<Integer> toolIds) {
+        List<ToolItems> tools;
+        if (toolIds != null && !toolIds.isEmpty()) {
+            tools = toolItemRepository.findAllById(toolIds);
+        } else if (category != null && !category.isBlank()) {
+            tools = toolItemRepository.findByCategory(category);
+        } else if (location != null && !location.isBlank()) {
+            tools = toolItemRepository.findByLocation(location);
+        } else {
+            throw new IllegalArgumentException("Specify toolIds, category or location");
+        }
+        return tools.stream().sorted(Comparator.comparingInt(ToolItems::getTool_id)).toList();
+    }
+
+    //stores many uploaded QR images at once: one SELECT, then the UPDATEs flush together (hibernate.jdbc.batch_size)
+    @Transactional
+    public List<ToolItems> saveQrImages(List<ToolItems> toolsWithQr) {
+        Map<Integer, ToolItems> updates = toolsWithQr.stream().collect(Collectors.toMap(ToolItems::getTool_id, tool -> tool));
+        List<ToolItems> managed = toolItemRepository.findAllById(updates.keySet());
+        for (ToolItems tool : managed) {
+            tool.setQr_code(updates.get(tool.getTool_id()).getQr_code());
+            tool.setQr_code_name(updates.get(tool.getTool_id()).getQr_code_name());
+            eventPublisher.publishEvent(new ToolItemChanged(tool.getTool_id()));
+        }
+        return toolItemRepository.saveAll(managed);
+    }
+
+    @Transactional
     public ToolItems updateToolItem(ToolItems newToolData) {
         try {
             ToolItems old_tool = toolItemRepository.findById(newToolData.getTool_id()).orElse(null);
 
             if (old_tool != null) {
+                //a replaced image moves its reference to the new one
+                if (!Objects.equals(old_tool.getImage_name(), newToolData.getImage_name())) {
+                    imageBlobService.attach("Tool_Images/", newToolData.getImage_name());
+                    if (old_tool.getImage_name() != null) {
+                        imageBlobService.release("Tool_Images/", old_tool.getImage_name());
+                    }
+                }
+                //category borrow counts move with the tool, before the tool row is written
+                analyticsRollupService.recordCategoryChange(old_tool.getTool_id(), old_tool.getCategory(), newToolData.getCategory());
                 old_tool.setName(newToolData.getName());
                 old_tool.setCategory(newToolData.getCategory());
                 old_tool.setLocation(newToolData.getLocation());
@@ -70,7 +146,10 @@ public class ToolItemService {
                 old_tool.setDate_acquired(newToolData.getDate_acquired());
                 old_tool.setImage_url(newToolData.getImage_url());
                 old_tool.setImage_name(newToolData.getImage_name());
+                old_tool.setImage_thumbnail_url(newToolData.getImage_thumbnail_url());
+                old_tool.setImage_medium_url(newToolData.getImage_medium_url());
                 toolItemRepository.save(old_tool);
+                eventPublisher.publishEvent(new ToolItemChanged(old_tool.getTool_id()));
                 return old_tool;
             } else {
                 throw new IllegalArgumentException("No Item found");
@@ -81,15 +160,25 @@ public class ToolItemService {
     }
 
     @SuppressWarnings({ "unused" })
+    @Transactional
     public String deleteToolItem(String toolId) {
         String message = null;
 
         try {
             ToolItems toolItem = toolItemRepository.findById(Integer.parseInt(toolId)).orElse(null);
             if(toolItem != null){
-                s3Service.deleteImage(toolItem.getImage_name(), "Tool_Images/");
-                s3Service.deleteImage(toolItem.getQr_code_name(), "QR_Images/");
                 toolItemRepository.deleteById(Integer.parseInt(toolId));
+                //images are removed by the cleanup queue once this transaction commits
+                //content-addressed images may be shared, so they are only removed with their last reference
+                if (toolItem.getImage_name() != null && !imageBlobService.release("Tool_Images/", toolItem.getImage_name())) {
+                    cleanupJobService.enqueueS3Delete("Tool_Images/", toolItem.getImage_name());
+                    for (String variant : ImagePipelineService.VARIANTS) {
+                        cleanupJobService.enqueueS3Delete("Tool_Images/", ImagePipelineService.variantName(toolItem.getImage_name(), variant));
+                    }
+                }
+                cleanupJobService.enqueueS3Delete("QR_Images/", toolItem.getQr_code_name());
+                totalTools.decrement();
+                eventPublisher.publishEvent(new ToolItemChanged(toolItem.getTool_id()));
                 message = "Tool Item deleted successfully";
             }
         }catch(NoSuchElementException e){
@@ -98,6 +187,16 @@ public class ToolItemService {
         return message;
     }
 
+    //published by every write to a tool, including ones outside this service such as approval marking it BORROWED
+    public record ToolItemChanged(int toolId) {
+    }
+
+    //the cached copy is only dropped once the write commits, so a read in between cannot cache the old row again
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @CacheEvict(cacheNames = CacheConfig.TOOL_ITEMS, key = "#event.toolId")
+    public void onToolItemChanged(ToolItemChanged event) {
+    }
+
     public List<String> getAllToolItemNames(){
         return toolItemRepository.getAllItemNames();
     }
@@ -124,7 +223,12 @@ public class ToolItemService {
     }
 
     public int getTotalTools(){
-        return toolItemRepository.findAll().size();
+        return (int) totalTools.get();
+    }
+
+    @Scheduled(fixedDelayString = "${tooltrack.counters.reconcile-interval-ms:300000}")
+    public void reconcileTotalTools(){
+        totalTools.reconcile();
     }
 
     public String dateFormat(Timestamp timestamp) {
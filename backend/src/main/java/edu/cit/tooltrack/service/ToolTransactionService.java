@@ -1,5 +1,6 @@
 package edu.cit.tooltrack.service;
 
+import edu.cit.tooltrack.dto.CursorPage;
 import edu.cit.tooltrack.dto.NotificationMessageDTO;
 import edu.cit.tooltrack.dto.ToolBorrowDTO;
 import edu.cit.tooltrack.dto.TransactionsDTO;
@@ -7,11 +8,16 @@ import edu.cit.tooltrack.entity.ToolItems;
 import edu.cit.tooltrack.entity.ToolTransaction;
 import edu.cit.tooltrack.entity.User;
 import edu.cit.tooltrack.repository.ToolTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.format.DateTimeFormatter;
@@ -19,6 +25,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class ToolTransactionService {
     @Autowired
     private ToolTransactionRepository toolTransactionRepo;
@@ -29,159 +36,133 @@ public class ToolTransactionService {
 
     @Autowired
     private NotificationService notificationService;
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
+    @Transactional
     public ToolTransaction addTransation(int toolId, String email) {
-
-        //checker for existing transaction
-        List<TransactionsDTO>transactions = getAllTransactions();
-        transactions.removeIf(entry -> !Objects.equals(entry.getEmail(), email));
-
-        User user = null;
-        ToolItems item = null;
-        try {
-            user = userService.getUserFullDetails(email);
-            item = toolItemService.getToolItem(toolId);
-
-            ToolTransaction transaction = new ToolTransaction();
-            transaction.setTool_id(item);
-            transaction.setUser_id(user);
-            transaction.setBorrow_date(Timestamp.valueOf(LocalDateTime.now()));
-            transaction.setStatus(ToolTransaction.Status.pending);
-            return toolTransactionRepo.save(transaction);
-        } catch (Exception e) {
+        //null when the user or tool does not exist; any other failure propagates and rolls the whole request back
+        User user = userService.getUserFullDetails(email);
+        ToolItems item = toolItemService.getToolItem(toolId);
+        if (user == null || item == null) {
+            log.warn("Borrow request for unknown user {} or tool {}", email, toolId);
             return null;
         }
+        analyticsRollupService.lockForIncrement();
+
+        ToolTransaction transaction = new ToolTransaction();
+        transaction.setTool_id(item);
+        transaction.setUser_id(user);
+        transaction.setBorrow_date(Timestamp.valueOf(LocalDateTime.now()));
+        transaction.setStatus(ToolTransaction.Status.pending);
+        ToolTransaction saved = toolTransactionRepo.save(transaction);
+        analyticsRollupService.recordRequested(saved);
+        return saved;
     }
 
+    @Transactional
     public ToolTransaction approval(int transaction_id, Boolean isApproved) {
-        ToolTransaction transaction = null;
-        ToolItems item = null;
-        try {
-            transaction = toolTransactionRepo.findById(transaction_id).orElse(null);
-            System.out.println(transaction);
-            item = transaction.getTool_id();
-            if (isApproved) {
-                transaction.setDue_date(Timestamp.valueOf(LocalDateTime.now().plusDays(2)));
-                transaction.setTransaction_type(ToolTransaction.TransactionType.borrow);
-                transaction.setStatus(ToolTransaction.Status.approved);
-                item.setStatus(ToolItems.Status.BORROWED);
-
-                notificationService.sendNotification(
-                        NotificationMessageDTO.builder()
-                                .toolName(item.getName())
-                                .message("Your Requested Tool " + item.getName()+"is Approved")
-                                .status(transaction.getStatus().toString())
-                                .borrow_date(transaction.getBorrow_date())
-                                .due_date(transaction.getDue_date())
-                                .user_email(transaction.getUser_id().getEmail())
-                                .build()
-                );
-
-                return toolTransactionRepo.save(transaction);
-            } else {
-                transaction.setStatus(ToolTransaction.Status.rejected);
-
-                notificationService.sendNotification(
-                        NotificationMessageDTO.builder()
-                                .toolName(item.getName())
-                                .message("Your Requested Tool " + item.getName()+"is declined")
-                                .status(transaction.getStatus().toString())
-                                .borrow_date(transaction.getBorrow_date())
-                                .due_date(transaction.getDue_date())
-                                .user_email(transaction.getUser_id().getEmail())
-                                .build()
-                );
-
-
-                return toolTransactionRepo.save(transaction);
-            }
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
+        //null when the transaction does not exist; any other failure propagates and rolls the whole approval back
+        ToolTransaction transaction = toolTransactionRepo.findWithToolAndUserById(transaction_id).orElse(null);
+        if (transaction == null) {
+            log.warn("Approval for unknown transaction {}", transaction_id);
             return null;
         }
+        analyticsRollupService.lockForIncrement();
+        ToolItems item = transaction.getTool_id();
+        boolean wasApprovedBorrow = AnalyticsRollupService.isApprovedBorrow(transaction);
+        if (isApproved) {
+            transaction.setDue_date(Timestamp.valueOf(LocalDateTime.now().plusDays(2)));
+            transaction.setTransaction_type(ToolTransaction.TransactionType.borrow);
+            transaction.setStatus(ToolTransaction.Status.approved);
+            item.setStatus(ToolItems.Status.BORROWED);
+
+            notificationService.sendNotification(
+                    NotificationMessageDTO.builder()
+                            .toolName(item.getName())
+                            .message("Your Requested Tool " + item.getName()+"is Approved")
+                            .status(transaction.getStatus().toString())
+                            .borrow_date(transaction.getBorrow_date())
+                            .due_date(transaction.getDue_date())
+                            .user_email(transaction.getUser_id().getEmail())
+                            .build()
+            );
+
+            ToolTransaction saved = toolTransactionRepo.save(transaction);
+            analyticsRollupService.recordApprovalChange(saved, wasApprovedBorrow);
+            eventPublisher.publishEvent(new ToolItemService.ToolItemChanged(item.getTool_id()));
+            return saved;
+        } else {
+            transaction.setStatus(ToolTransaction.Status.rejected);
+
+            notificationService.sendNotification(
+                    NotificationMessageDTO.builder()
+                            .toolName(item.getName())
+                            .message("Your Requested Tool " + item.getName()+"is declined")
+                            .status(transaction.getStatus().toString())
+                            .borrow_date(transaction.getBorrow_date())
+                            .due_date(transaction.getDue_date())
+                            .user_email(transaction.getUser_id().getEmail())
+                            .build()
+            );
+
+
+            ToolTransaction saved = toolTransactionRepo.save(transaction);
+            analyticsRollupService.recordApprovalChange(saved, wasApprovedBorrow);
+            return saved;
+        }
     }
 
     public List<TransactionsDTO> getAllTransactions() {
-        return toolTransactionRepo.findAll()
-                .stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return toolTransactionRepo.findAllTransactionDTOs();
     }
 
-    private TransactionsDTO mapToDTO(ToolTransaction transaction) {
-        ToolItems item = transaction.getTool_id();
-        User user = transaction.getUser_id();
-        return new TransactionsDTO(
-                transaction.getTransaction_id(),
-                user.getUser_id(),
-                user.getFirst_name(),
-                user.getLast_name(),
-                user.getEmail(),
-                item.getTool_id(),
-                item.getName(),
-                transaction.getBorrow_date(),
-                transaction.getDue_date(),
-                transaction.getReturn_date(),
-                transaction.getTransaction_type(),
-                transaction.getStatus());
+    public CursorPage<TransactionsDTO> getTransactionsPage(String cursor, Integer size) {
+        int pageSize = CursorPage.pageSize(cursor, size);
+        List<TransactionsDTO> rows = toolTransactionRepo.findPageAfter(CursorPage.decode(cursor), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, TransactionsDTO::getTransaction_id);
+    }
+
+    public List<TransactionsDTO> getTransactionsByStatus(Collection<ToolTransaction.Status> statuses) {
+        return toolTransactionRepo.findAllByStatusIn(statuses);
+    }
+
+    public List<TransactionsDTO> getBorrowedTransactions() {
+        return toolTransactionRepo.findAllByTransactionTypeNot(ToolTransaction.TransactionType.returned);
     }
 
     public  Map<Month, Long> getFormatedDatesSortedBy(String sortBy) {
-        System.out.println("sort by: " + sortBy);
         if(sortBy.equals("Alltime")){
-            List<Timestamp> timestamps = toolTransactionRepo.getAllYear();
-            return null;
+            return analyticsRollupService.getMonthlyCounts();
         }else if(sortBy.equals("Last6months")){
-            List<Timestamp> timestamps = toolTransactionRepo.getLastSixMonths();
-            return formateDates(timestamps);
+            return analyticsRollupService.getMonthlyCountsSince(LocalDate.now().minusMonths(6));
         }else{
             //last year
             int lastyear = LocalDateTime.now().getYear()-1;
-            List<Timestamp> timestamps = toolTransactionRepo.getLastYear(lastyear);
-            return formateDates(timestamps);
+            return analyticsRollupService.getMonthlyCountsBetween(LocalDate.of(lastyear, 1, 1), LocalDate.of(lastyear + 1, 1, 1));
         }
     }
 
-    private static Map<Month, Long> formateDates(List<Timestamp> timestamps) {
-        LocalDateTime sixMonthsAgo = LocalDateTime.now().minusMonths(6);
-        return timestamps.stream()
-                .map(Timestamp::toLocalDateTime)
-                .collect(Collectors.groupingBy(LocalDateTime::getMonth, Collectors.counting()));
-    }
-
     public List<TransactionsDTO> getTranscationsByEmail(String email){
-        return toolTransactionRepo.getTransactionsByEmail(email)
-                .stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return toolTransactionRepo.findTransactionDTOsByEmail(email);
     }
 
     public Map<String, Integer> countAllTools(){
-        List<TransactionsDTO> toolTransactions = toolTransactionRepo.findAll()
-                .stream().map(this::mapToDTO)
-                .toList();
-        TreeMap<String, Integer> toolCounts = new TreeMap<>();
-
-        if(toolTransactions.size() > 0){
-            return null;
-        }
-
-        for (TransactionsDTO tool : toolTransactions) {
-            String toolName = tool.getTool_name();
-            toolCounts.put(toolName, toolCounts.getOrDefault(toolName, 0) + 1);
-        }
+        return analyticsRollupService.getRequestCountsByTool();
+    }
 
-        Map<String, Integer> sortedByCount = toolCounts.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
+    //most borrowed tools among approved borrow transactions, highest count first
+    public Map<String, Integer> getTopBorrowedTools(int limit){
+        return analyticsRollupService.getTopApprovedTools(limit);
+    }
 
-        sortedByCount.forEach((tool, count) -> System.out.println(tool + " = " + count));
+    public Map<String, Long> countByCategory(){
+        return analyticsRollupService.getRequestCountsByCategory();
+    }
 
-        return sortedByCount;
+    public boolean hasTransactions(){
+        return toolTransactionRepo.count() > 0;
     }
 }
@@ -0,0 +1,47 @@
+package edu.cit.tooltrack.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+
+//Where the chunks of a resumable upload are assembled; ImageChunkUploader owns ordering and bookkeeping
+interface UploadSink {
+
+    //consumes exactly length bytes of chunkIndex from in before returning; the future completes once the chunk is stored.
+    //May be called concurrently and repeated for retries
+    CompletableFuture<Void> write(int chunkIndex, long offset, int length, InputStream in) throws IOException;
+
+    //called once every chunk is written; verifies size and the optional expected hex SHA-256, completes with the content's SHA-256
+    CompletableFuture<String> finish(String expectedSha256) throws IOException;
+
+    //stores the finished upload; sinks that can still choose their key store it as contentName
+    CompletableFuture<StoredObject> store(String contentName);
+
+    //discards everything written, e.g. after finish() found the content already stored
+    CompletableFuture<Void> abort();
+
+    record StoredObject(String name, String url) {
+    }
+
+    static String sha256Hex(Path path) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(path), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void requireEndOfStream(InputStream in, int chunkIndex, int length) throws IOException {
+        if (in.read() != -1) {
+            throw new IllegalArgumentException("Chunk " + chunkIndex + " must be exactly " + length + " bytes");
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package edu.cit.tooltrack.service;
 
+import edu.cit.tooltrack.config.CacheConfig;
+import edu.cit.tooltrack.dto.CursorPage;
 import edu.cit.tooltrack.dto.LoginRequest;
 import edu.cit.tooltrack.dto.UserResponseDTO;
 import edu.cit.tooltrack.entity.User;
 import edu.cit.tooltrack.repository.UserRepository;
 import edu.cit.tooltrack.security.jwt.CustomUserDetails;
 import edu.cit.tooltrack.security.jwt.JwtService;
+import edu.cit.tooltrack.security.jwt.UserStatusCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -36,6 +44,9 @@ public class UserService {
     private final AuthenticationManager authenticationManager;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    @Autowired
+    private UserStatusCache userStatusCache;
+    private final CachedCounter totalUsers = new CachedCounter(() -> userRepository.count());
 
     public UserService(AuthenticationManager authenticationManager, PasswordEncoder passwordEncoder, JwtService jwtService) {
         this.authenticationManager = authenticationManager;
@@ -116,6 +127,7 @@ public class UserService {
         }
 
         User savedUser = userRepository.save(user);
+        totalUsers.increment();
         return new UserResponseDTO(savedUser.getEmail(), savedUser.getRole() ,savedUser.getFirst_name(), savedUser.getLast_name(), savedUser.getIsGoogle());
     }
 
@@ -124,8 +136,19 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    public CursorPage<User> getUsersPage(String cursor, Integer size){
+        int pageSize = CursorPage.pageSize(cursor, size);
+        List<User> rows = userRepository.findPageAfter(CursorPage.decode(cursor), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, User::getUser_id);
+    }
+
     public int getTotalUsers(){
-        return userRepository.findAll().size();
+        return (int) totalUsers.get();
+    }
+
+    @Scheduled(fixedDelayString = "${tooltrack.counters.reconcile-interval-ms:300000}")
+    public void reconcileTotalUsers(){
+        totalUsers.reconcile();
     }
 
     public UserResponseDTO getUserData(String email){
@@ -133,6 +156,7 @@ public class UserService {
         return new UserResponseDTO(user.getEmail(),user.getRole(),user.getFirst_name(), user.getLast_name(), user.getIsGoogle());
     }
 
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#email", unless = "#result == null")
     public User getUserFullDetails(String email){
         return userRepository.findByEmail(email);
     }
@@ -141,6 +165,7 @@ public class UserService {
         user.setRole("staff");
         user.setCreated_at(Timestamp.valueOf(LocalDateTime.now()));
         userRepository.save(user);
+        totalUsers.increment();
         return new UserResponseDTO(user.getEmail(), user.getRole() ,user.getFirst_name(), user.getLast_name(), user.getIsGoogle());
     }
 
@@ -154,6 +179,10 @@ public class UserService {
     }
 
     @SuppressWarnings("finally")
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#newdata.email"),
+            @CacheEvict(cacheNames = CacheConfig.USER_DETAILS, key = "#newdata.email")
+    })
     public UserResponseDTO editUser(User newdata){
         User user = null;
         try {
@@ -163,6 +192,7 @@ public class UserService {
             user.setLast_name(newdata.getLast_name());
             user.setPassword_hash(newdata.getPassword_hash());
             user.setUpdated_at(Timestamp.valueOf(LocalDateTime.now()));
+            userStatusCache.evict(user.getEmail());
         }catch (NoSuchElementException error) {
             return null;
         } finally {
@@ -173,6 +203,10 @@ public class UserService {
 
     //delete
     @SuppressWarnings({ "unused" })
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#email"),
+            @CacheEvict(cacheNames = CacheConfig.USER_DETAILS, key = "#email")
+    })
     public String deleteUser(String email) {
         System.out.println("email: " + email);
         String msg="";
@@ -180,6 +214,8 @@ public class UserService {
 
         if(user != null) {
             userRepository.delete(user);
+            totalUsers.decrement();
+            userStatusCache.evict(email);
             msg = "User Record successfully deleted";
             System.out.println(user);
         }else {
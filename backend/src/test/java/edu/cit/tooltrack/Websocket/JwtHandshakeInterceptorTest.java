@@ -0,0 +1,63 @@
+package edu.cit.tooltrack.Websocket;
+
+import edu.cit.tooltrack.dto.UserResponseDTO;
+import edu.cit.tooltrack.security.jwt.JwtService;
+import edu.cit.tooltrack.security.jwt.UserStatusCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtHandshakeInterceptorTest {
+
+    private final JwtService jwtService = new JwtService(Base64.getEncoder().encodeToString("k".repeat(64).getBytes()), "k1", "");
+    private final UserStatusCache userStatusCache = mock(UserStatusCache.class);
+    private final JwtHandshakeInterceptor interceptor = new JwtHandshakeInterceptor(jwtService, userStatusCache);
+    private final String token = jwtService.generateToken(new UserResponseDTO("staff@example.com", "Staff", "Sam", "Staff", false));
+
+    @Test
+    void verifiedTokenBecomesTheSessionUser() {
+        when(userStatusCache.isActive("staff@example.com")).thenReturn(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/tooltrack/info");
+        request.setQueryString("access_token=" + token + "&userId=admin@example.com");
+        Map<String, Object> attributes = new HashMap<>();
+
+        assertTrue(interceptor.beforeHandshake(new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(new MockHttpServletResponse()), null, attributes));
+
+        //the spoofable userId parameter is ignored
+        assertEquals("staff@example.com", new CustomHandshakeHandler().determineUser(null, null, attributes).getName());
+    }
+
+    @Test
+    void missingForgedOrDeactivatedTokensAreRefused() throws IOException {
+        when(userStatusCache.isActive("staff@example.com")).thenReturn(false);
+
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), handshake(null));
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), handshake("Bearer " + token.substring(0, token.length() - 2) + "xx"));
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), handshake("Bearer " + token));
+    }
+
+    private int handshake(String authorization) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/tooltrack/info");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+        assertFalse(interceptor.beforeHandshake(new ServletServerHttpRequest(request), serverResponse, null, new HashMap<>()));
+        serverResponse.flush();
+        return response.getStatus();
+    }
+}
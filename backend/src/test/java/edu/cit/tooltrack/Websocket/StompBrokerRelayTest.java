@@ -0,0 +1,154 @@
+package edu.cit.tooltrack.Websocket;
+
+import edu.cit.tooltrack.dto.NotificationMessageDTO;
+import edu.cit.tooltrack.security.jwt.JwtService;
+import edu.cit.tooltrack.security.jwt.UserStatusCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+//two application nodes relaying through one embedded Artemis broker, as two instances behind the load balancer would
+class StompBrokerRelayTest {
+
+    private static final String EMAIL = "staff@example.com";
+
+    private static EmbeddedActiveMQ broker;
+    private static int stompPort;
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            stompPort = socket.getLocalPort();
+        }
+        broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false)
+                .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + stompPort
+                        + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/"));
+        broker.start();
+    }
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        broker.stop();
+    }
+
+    @Test
+    void userMessageSentOnOneNodeReachesSessionOnAnother() throws Exception {
+        try (AnnotationConfigWebApplicationContext nodeA = startNode();
+             AnnotationConfigWebApplicationContext nodeB = startNode()) {
+            Queue<Message<?>> outbound = new ConcurrentLinkedQueue<>();
+            nodeB.getBean("clientOutboundChannel", SubscribableChannel.class).subscribe(outbound::add);
+
+            //a client of node B connects and subscribes to its notification queue
+            Principal user = () -> EMAIL;
+            nodeB.publishEvent(new SessionConnectedEvent(this, frame(StompCommand.CONNECT, user, null), user));
+            SubscribableChannel inbound = nodeB.getBean("clientInboundChannel", SubscribableChannel.class);
+            inbound.send(frame(StompCommand.CONNECT, user, null));
+            await(() -> outbound.stream().anyMatch(message -> StompCommand.CONNECTED.equals(StompHeaderAccessor.wrap(message).getCommand())));
+            inbound.send(frame(StompCommand.SUBSCRIBE, user, "/user" + WebsocketConfiguration.NOTIFICATIONS_QUEUE));
+
+            //node A has no session for the user, so it hands the message to the other nodes through the broker;
+            //resent until node B's subscriptions are in place
+            SimpMessagingTemplate template = nodeA.getBean(SimpMessagingTemplate.class);
+            NotificationMessageDTO notification = NotificationMessageDTO.builder().toolName("Hammer").message("Approved").user_email(EMAIL).seq(1).build();
+            await(() -> {
+                template.convertAndSendToUser(EMAIL, WebsocketConfiguration.NOTIFICATIONS_QUEUE, notification);
+                return outbound.stream().anyMatch(message -> StompCommand.MESSAGE.equals(StompHeaderAccessor.wrap(message).getCommand()));
+            });
+
+            Message<?> delivered = outbound.stream()
+                    .filter(message -> StompCommand.MESSAGE.equals(StompHeaderAccessor.wrap(message).getCommand()))
+                    .findFirst().orElseThrow();
+            assertEquals("s1", StompHeaderAccessor.wrap(delivered).getSessionId());
+            assertTrue(new String((byte[]) delivered.getPayload(), StandardCharsets.UTF_8).contains("\"toolName\":\"Hammer\""));
+            //CONNECTED and the notification went out through the counted outbound channel
+            assertTrue(nodeB.getBean(MeterRegistry.class).counter("tooltrack.websocket.messages", "direction", "outbound").count() >= 2);
+        }
+    }
+
+    private static AnnotationConfigWebApplicationContext startNode() throws InterruptedException {
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("relay", Map.of(
+                "tooltrack.websocket.broker", WebsocketConfiguration.RELAY_BROKER,
+                "tooltrack.websocket.relay.host", "127.0.0.1",
+                "tooltrack.websocket.relay.port", String.valueOf(stompPort),
+                "tooltrack.websocket.heartbeat-ms", "1000")));
+        context.register(Node.class);
+        context.refresh();
+        context.start();
+        StompBrokerRelayMessageHandler relay = context.getBean(StompBrokerRelayMessageHandler.class);
+        await(relay::isBrokerAvailable);
+        return context;
+    }
+
+    private static Message<byte[]> frame(StompCommand command, Principal user, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("s1");
+        accessor.setUser(user);
+        accessor.setSessionAttributes(new HashMap<>());
+        if (command == StompCommand.CONNECT) {
+            accessor.setAcceptVersion("1.2");
+        } else {
+            accessor.setSubscriptionId("sub-0");
+            accessor.setDestination(destination);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the broker relay");
+            Thread.sleep(100);
+        }
+    }
+
+    @Configuration
+    @Import({WebsocketConfiguration.class, WebSocketMetrics.class, SimpleMeterRegistry.class})
+    static class Node {
+
+        @Bean
+        JwtHandshakeInterceptor jwtHandshakeInterceptor() {
+            return new JwtHandshakeInterceptor(mock(JwtService.class), mock(UserStatusCache.class));
+        }
+
+        @Bean
+        NotificationCatchUpInterceptor notificationCatchUpInterceptor() {
+            return new NotificationCatchUpInterceptor();
+        }
+    }
+}
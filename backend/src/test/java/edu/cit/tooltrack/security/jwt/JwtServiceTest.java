@@ -0,0 +1,49 @@
+package edu.cit.tooltrack.security.jwt;
+
+import edu.cit.tooltrack.dto.UserResponseDTO;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String OLD_SECRET = secret('a');
+    private static final String NEW_SECRET = secret('b');
+    private static final UserResponseDTO USER =
+            new UserResponseDTO("staff@example.com", "Staff", "Sam", "Staff", false);
+
+    @Test
+    void generatedTokenRoundTripsClaims() {
+        JwtService jwtService = new JwtService(NEW_SECRET, "k2", "");
+
+        Claims claims = jwtService.parseClaims(jwtService.generateToken(USER));
+
+        assertEquals("staff@example.com", claims.getSubject());
+        assertEquals("Staff", claims.get("role", String.class));
+        assertEquals("ToolTrack", claims.getIssuer());
+    }
+
+    @Test
+    void retiredKeyStillVerifiesAfterRotation() {
+        String oldToken = new JwtService(OLD_SECRET, "k1", "").generateToken(USER);
+        JwtService rotated = new JwtService(NEW_SECRET, "k2", "k1=" + OLD_SECRET);
+
+        assertEquals("staff@example.com", rotated.parseClaims(oldToken).getSubject());
+    }
+
+    @Test
+    void unknownKeyIdIsRejected() {
+        String oldToken = new JwtService(OLD_SECRET, "k1", "").generateToken(USER);
+        JwtService rotated = new JwtService(NEW_SECRET, "k2", "");
+
+        assertThrows(SignatureException.class, () -> rotated.parseClaims(oldToken));
+    }
+
+    private static String secret(char fill) {
+        return Base64.getEncoder().encodeToString(String.valueOf(fill).repeat(64).getBytes());
+    }
+}
@@ -0,0 +1,105 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.entity.CleanupJob;
+import edu.cit.tooltrack.repository.CleanupJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cleanup;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "tooltrack.cleanup.max-attempts=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CleanupJobService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CleanupJobServiceTest {
+
+    @Autowired
+    private CleanupJobService cleanupJobService;
+    @Autowired
+    private CleanupJobRepository cleanupJobRepo;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private BlobStore blobStore;
+
+    @AfterEach
+    void tearDown() {
+        cleanupJobRepo.deleteAll();
+    }
+
+    @Test
+    void s3DeletesAreBatchedAndFailuresRetriedThenParked() {
+        when(blobStore.objectKey(anyString(), anyString())).thenAnswer(invocation -> "tooltrack/" + invocation.getArgument(0) + invocation.getArgument(1));
+        when(blobStore.deleteObjects(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(Map.of("tooltrack/QR_Images/b.png", "AccessDenied: denied")));
+        cleanupJobService.enqueueS3Delete("Tool_Images/", "a.jpg");
+        cleanupJobService.enqueueS3Delete("QR_Images/", "b.png");
+        cleanupJobService.enqueueS3Delete("QR_Images/", null);
+
+        assertEquals(2, cleanupJobService.runBatch());
+
+        verify(blobStore).deleteObjects(List.of("tooltrack/Tool_Images/a.jpg", "tooltrack/QR_Images/b.png"));
+        List<CleanupJob> remaining = cleanupJobRepo.findAll();
+        assertEquals(1, remaining.size());
+        CleanupJob retry = remaining.get(0);
+        assertEquals(CleanupJob.Status.PENDING, retry.getStatus());
+        assertEquals(1, retry.getAttempts());
+        assertEquals("AccessDenied: denied", retry.getLast_error());
+        //backed off, so nothing is due right now
+        assertEquals(0, cleanupJobService.runBatch());
+
+        retry.setNext_attempt_at(retry.getCreated_at());
+        cleanupJobRepo.save(retry);
+        assertEquals(1, cleanupJobService.runBatch());
+        assertEquals(CleanupJob.Status.FAILED, cleanupJobRepo.findAll().get(0).getStatus());
+
+        cleanupJobService.refreshMetrics();
+        assertEquals(0, meterRegistry.get("tooltrack.cleanup.queue.depth").gauge().value());
+        assertEquals(1, meterRegistry.get("tooltrack.cleanup.jobs.failed").gauge().value());
+        assertEquals(1, meterRegistry.get("tooltrack.cleanup.jobs").tag("result", "completed").counter().count());
+    }
+
+    @Test
+    void tempFilesAreDeletedOnlyOnceDue() throws Exception {
+        Path due = Files.createTempFile("cleanup", ".part");
+        Path later = Files.createTempFile("cleanup", ".part");
+        cleanupJobService.enqueueTempFileDelete(due, Duration.ZERO);
+        cleanupJobService.enqueueTempFileDelete(later, Duration.ofHours(1));
+
+        cleanupJobService.refreshMetrics();
+        assertEquals(2, meterRegistry.get("tooltrack.cleanup.queue.depth").gauge().value());
+
+        assertEquals(1, cleanupJobService.runBatch());
+        assertFalse(Files.exists(due));
+        assertTrue(Files.exists(later));
+        verify(blobStore, never()).deleteObjects(anyList());
+        Files.delete(later);
+    }
+}
@@ -0,0 +1,104 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.dto.DirectUploadDTO;
+import edu.cit.tooltrack.entity.DirectUpload;
+import edu.cit.tooltrack.entity.ImageBlob;
+import edu.cit.tooltrack.repository.DirectUploadRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.model.Part;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DirectUploadServiceTest {
+
+    private static final String SHA256 = "ab".repeat(32);
+    private static final String NAME = SHA256 + ".jpg";
+
+    @Mock
+    private S3Service s3Service;
+    @Mock
+    private ImageBlobService imageBlobService;
+    @Mock
+    private ImagePipelineService imagePipelineService;
+    @Mock
+    private DirectUploadRepository directUploadRepository;
+
+    @InjectMocks
+    private DirectUploadService directUploadService;
+
+    public DirectUploadServiceTest() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(directUploadService, "maxUploadSize", 1_000_000L);
+        ReflectionTestUtils.setField(directUploadService, "partSize", 8_388_608L);
+    }
+
+    @Test
+    void repeatedCompleteRegistersTheSingleUploadOnce() {
+        ImageBlob blob = new ImageBlob();
+        blob.setObject_name(NAME);
+        blob.setImage_url("https://s3/" + NAME);
+        when(s3Service.headObject("Tool_Images/", NAME)).thenReturn(CompletableFuture.completedFuture("https://s3/" + NAME));
+        when(imagePipelineService.createVariants("Tool_Images/", NAME)).thenReturn(CompletableFuture.completedFuture(Map.of()));
+        when(imageBlobService.register(eq("Tool_Images/"), eq(SHA256), eq(NAME), anyString(), anyMap())).thenReturn(blob);
+        when(imageBlobService.reuse("Tool_Images/", SHA256)).thenReturn(null, blob);
+
+        Map<String, String> first = directUploadService.completeUpload(NAME, null, ImageChunkUploader.UploadTarget.TOOL).join();
+        Map<String, String> retried = directUploadService.completeUpload(NAME, null, ImageChunkUploader.UploadTarget.TOOL).join();
+
+        assertEquals(first, retried);
+        assertEquals(NAME, retried.get("image_name"));
+        verify(imageBlobService, times(1)).register(anyString(), anyString(), anyString(), anyString(), anyMap());
+        verify(imagePipelineService, times(1)).createVariants(anyString(), anyString());
+        //the reference belongs to the record saved with the image, not to the upload
+        verify(imageBlobService, never()).attach(anyString(), anyString());
+    }
+
+    @Test
+    void presignOfStoredContentReturnsItWithoutTakingAReference() {
+        ImageBlob blob = new ImageBlob();
+        blob.setObject_name(NAME);
+        blob.setImage_url("https://s3/" + NAME);
+        when(imageBlobService.reuse("Tool_Images/", SHA256)).thenReturn(blob);
+
+        DirectUploadDTO upload = directUploadService.presignUpload("photo.jpg", 1000, SHA256, ImageChunkUploader.UploadTarget.TOOL).join();
+
+        assertEquals(NAME, upload.getStored().get("image_name"));
+        assertTrue(upload.getPartUrls().isEmpty());
+        verify(s3Service, never()).presignPut(anyString(), anyString(), anyLong(), anyString());
+        verify(imageBlobService, never()).attach(anyString(), anyString());
+    }
+
+    @Test
+    void multipartCompleteAbortsWhenPartsExceedTheDeclaredSize() {
+        DirectUpload pending = new DirectUpload();
+        pending.setUpload_id("upload-1");
+        pending.setFolder("Tool_Images/");
+        pending.setImage_name("big.jpg");
+        pending.setSize(1000);
+        when(directUploadRepository.findById("upload-1")).thenReturn(Optional.of(pending));
+        List<Part> parts = List.of(Part.builder().partNumber(1).eTag("a").size(900_000L).build(),
+                Part.builder().partNumber(2).eTag("b").size(900_000L).build());
+        when(s3Service.listParts("Tool_Images/", "big.jpg", "upload-1")).thenReturn(CompletableFuture.completedFuture(parts));
+        when(s3Service.abortMultipartUpload("Tool_Images/", "big.jpg", "upload-1")).thenReturn(CompletableFuture.completedFuture(null));
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> directUploadService.completeUpload("big.jpg", "upload-1", ImageChunkUploader.UploadTarget.TOOL).join());
+
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        verify(s3Service).abortMultipartUpload("Tool_Images/", "big.jpg", "upload-1");
+        verify(s3Service, never()).completeMultipartUpload(anyString(), anyString(), anyString(), anyList());
+        verify(imagePipelineService, never()).createVariants(anyString(), anyString());
+    }
+}
@@ -0,0 +1,92 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.entity.CleanupJob;
+import edu.cit.tooltrack.entity.ImageBlob;
+import edu.cit.tooltrack.repository.CleanupJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:blobs;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ImageBlobService.class, CleanupJobService.class, SimpleMeterRegistry.class})
+class ImageBlobServiceTest {
+
+    private static final String SHA256 = "ab".repeat(32);
+
+    @Autowired
+    private ImageBlobService imageBlobService;
+    @Autowired
+    private CleanupJobRepository cleanupJobRepo;
+
+    @MockitoBean
+    private BlobStore blobStore;
+
+    @Test
+    void uploadsShareOneObjectThatIsOnlyReferencedByAttachedRecords() {
+        when(blobStore.objectKey(anyString(), anyString())).thenAnswer(invocation -> "tooltrack/" + invocation.getArgument(0) + invocation.getArgument(1));
+        String name = SHA256 + ".jpg";
+
+        assertNull(imageBlobService.reuse("Tool_Images/", SHA256));
+        imageBlobService.register("Tool_Images/", SHA256, name, "https://s3/" + name, Map.of("thumbnail_url", "https://s3/thumb.jpg"));
+        //a repeated upload of the same bytes takes no reference either
+        imageBlobService.register("Tool_Images/", SHA256, name, "https://s3/" + name, Map.of());
+        ImageBlob duplicate = imageBlobService.reuse("Tool_Images/", SHA256);
+        assertNotNull(duplicate);
+        assertEquals(name, duplicate.getObject_name());
+        assertEquals(0, duplicate.getRef_count());
+        assertEquals("https://s3/thumb.jpg", ImageBlobService.toUploadResult(duplicate).get("thumbnail_url"));
+        //the same bytes in another folder are a separate object
+        assertNull(imageBlobService.reuse("ReturnedTool_Images/", SHA256));
+
+        assertTrue(imageBlobService.attach("Tool_Images/", name));
+        assertTrue(imageBlobService.attach("Tool_Images/", name));
+        assertFalse(imageBlobService.attach("Tool_Images/", "legacy-uuid_photo.jpg"));
+        assertTrue(imageBlobService.release("Tool_Images/", name));
+        assertTrue(imageBlobService.release("Tool_Images/", name));
+        //released, but uploaded within the TTL: a client may still attach it
+        assertEquals(0, cleanupJobRepo.count());
+        assertEquals(0, imageBlobService.expireUnattached());
+        assertFalse(imageBlobService.release("Tool_Images/", "legacy-uuid_photo.jpg"));
+    }
+
+    @Test
+    void uploadsNeverAttachedExpireAfterTheTtl() {
+        when(blobStore.objectKey(anyString(), anyString())).thenAnswer(invocation -> "tooltrack/" + invocation.getArgument(0) + invocation.getArgument(1));
+        String abandoned = SHA256 + ".jpg";
+        String kept = "cd".repeat(32) + ".png";
+        imageBlobService.register("Tool_Images/", SHA256, abandoned, "https://s3/" + abandoned, Map.of());
+        imageBlobService.register("Tool_Images/", "cd".repeat(32), kept, "https://s3/" + kept, Map.of());
+        assertTrue(imageBlobService.attach("Tool_Images/", kept));
+
+        ReflectionTestUtils.setField(imageBlobService, "unattachedTtlMinutes", -1L);
+        assertEquals(1, imageBlobService.expireUnattached());
+        List<String> deleted = cleanupJobRepo.findAll().stream().map(CleanupJob::getTarget).sorted().toList();
+        assertEquals(List.of("tooltrack/Tool_Images/" + SHA256 + ".jpg",
+                "tooltrack/Tool_Images/" + SHA256 + "_medium.jpg",
+                "tooltrack/Tool_Images/" + SHA256 + "_thumb.jpg"), deleted);
+        assertNull(imageBlobService.reuse("Tool_Images/", SHA256));
+
+        //re-uploading before the cleanup ran takes the object back
+        imageBlobService.register("Tool_Images/", SHA256, abandoned, "https://s3/" + abandoned, Map.of());
+        assertEquals(0, cleanupJobRepo.count());
+    }
+}
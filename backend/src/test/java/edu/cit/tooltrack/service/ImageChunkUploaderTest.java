@@ -0,0 +1,292 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.dto.UploadSessionDTO;
+import edu.cit.tooltrack.entity.ImageBlob;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Utilities;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImageChunkUploaderTest {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @Mock
+    private BlobStore blobStore;
+    @Mock
+    private CleanupJobService cleanupJobService;
+    @Mock
+    private ImagePipelineService imagePipelineService;
+    @Mock
+    private ImageBlobService imageBlobService;
+
+    @InjectMocks
+    private ImageChunkUploader uploader;
+
+    public ImageChunkUploaderTest() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(uploader, "maxUploadSize", 1_000_000L);
+        ReflectionTestUtils.setField(uploader, "sessionTtlMinutes", 60L);
+        ReflectionTestUtils.setField(uploader, "uploadMode", "disk");
+        when(imagePipelineService.createVariants(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(Map.of("thumbnail_url", "https://s3/image_thumb.jpg")));
+        //new content by default: register echoes what was stored
+        when(imageBlobService.register(anyString(), anyString(), anyString(), anyString(), anyMap())).thenAnswer(invocation -> {
+            ImageBlob blob = new ImageBlob();
+            blob.setObject_name(invocation.getArgument(2));
+            blob.setImage_url(invocation.getArgument(3));
+            blob.setThumbnail_url(invocation.<Map<String, String>>getArgument(4).get("thumbnail_url"));
+            return blob;
+        });
+    }
+
+    @Test
+    void parallelOutOfOrderChunks_AssembleOriginalFile() throws Exception {
+        byte[] image = new byte[4500];
+        new Random(1).nextBytes(image);
+        List<byte[]> uploaded = new ArrayList<>();
+        when(blobStore.upload(any(File.class), eq("Tool_Images/"), anyString())).thenAnswer(invocation -> {
+            uploaded.add(Files.readAllBytes(invocation.<File>getArgument(0).toPath()));
+            return CompletableFuture.completedFuture("https://s3/image.jpg");
+        });
+
+        UploadSessionDTO session = uploader.initUpload("image.jpg", image.length, CHUNK_SIZE, ImageChunkUploader.UploadTarget.TOOL).join();
+        assertEquals(5, session.getTotalChunks());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<UploadSessionDTO>> writes = new ArrayList<>();
+            for (int chunk : List.of(4, 2, 0, 3)) {
+                writes.add(executor.submit(() -> uploader.writeChunk(session.getUploadId(), chunk, chunkStream(image, chunk)).join()));
+            }
+            for (Future<UploadSessionDTO> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //resume: the status call tells the client which chunk is still missing
+        assertEquals(List.of(1), uploader.getUploadStatus(session.getUploadId()).getMissingChunks());
+        assertThrows(IllegalStateException.class, () -> uploader.completeUpload(session.getUploadId(), null));
+        uploader.writeChunk(session.getUploadId(), 1, chunkStream(image, 1)).join();
+
+        Map<String, String> result = uploader.completeUpload(session.getUploadId(), sha256(image)).join();
+
+        assertEquals("https://s3/image.jpg", result.get("imageUrl"));
+        assertEquals(sha256(image) + ".jpg", result.get("image_name"));
+        assertEquals("https://s3/image_thumb.jpg", result.get("thumbnail_url"));
+        verify(blobStore).upload(any(File.class), eq("Tool_Images/"), eq(sha256(image) + ".jpg"));
+        verify(imagePipelineService).createVariants("Tool_Images/", sha256(image) + ".jpg");
+        verify(imageBlobService).register(eq("Tool_Images/"), eq(sha256(image)), eq(sha256(image) + ".jpg"), eq("https://s3/image.jpg"), anyMap());
+        assertArrayEquals(image, uploaded.get(0));
+        assertThrows(NoSuchElementException.class, () -> uploader.getUploadStatus(session.getUploadId()));
+    }
+
+    @Test
+    void duplicateContent_ReusesStoredObjectWithoutUpload() throws Exception {
+        byte[] image = new byte[1500];
+        new Random(4).nextBytes(image);
+        ImageBlob stored = new ImageBlob();
+        stored.setObject_name(sha256(image) + ".jpg");
+        stored.setImage_url("https://s3/stored.jpg");
+        when(imageBlobService.reuse("Tool_Images/", sha256(image))).thenReturn(stored);
+
+        UploadSessionDTO session = uploader.initUpload("copy.jpg", image.length, CHUNK_SIZE, ImageChunkUploader.UploadTarget.TOOL).join();
+        uploader.writeChunk(session.getUploadId(), 0, chunkStream(image, 0)).join();
+        uploader.writeChunk(session.getUploadId(), 1, chunkStream(image, 1)).join();
+        Map<String, String> result = uploader.completeUpload(session.getUploadId(), null).join();
+
+        assertEquals("https://s3/stored.jpg", result.get("imageUrl"));
+        assertEquals(sha256(image) + ".jpg", result.get("image_name"));
+        verifyNoInteractions(blobStore, imagePipelineService);
+        assertFalse(Files.exists(Path.of("backend/uploads", session.getImage_name())));
+    }
+
+    @Test
+    void checksumMismatch_IsRejected() throws Exception {
+        byte[] image = new byte[1500];
+        UploadSessionDTO session = uploader.initUpload("image.jpg", image.length, CHUNK_SIZE, ImageChunkUploader.UploadTarget.RETURNED).join();
+        uploader.writeChunk(session.getUploadId(), 0, chunkStream(image, 0));
+        uploader.writeChunk(session.getUploadId(), 1, chunkStream(image, 1));
+
+        assertThrows(IllegalStateException.class, () -> uploader.completeUpload(session.getUploadId(), sha256(new byte[1])));
+        verifyNoInteractions(blobStore);
+    }
+
+    @Test
+    void wrongChunkLength_IsRejectedAndNotMarkedReceived() throws Exception {
+        UploadSessionDTO session = uploader.initUpload("image.jpg", 2000, CHUNK_SIZE, ImageChunkUploader.UploadTarget.TOOL).join();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> uploader.writeChunk(session.getUploadId(), 0, new ByteArrayInputStream(new byte[999])));
+        assertThrows(IllegalArgumentException.class,
+                () -> uploader.writeChunk(session.getUploadId(), 1, new ByteArrayInputStream(new byte[1001])));
+        assertEquals(List.of(0, 1), uploader.getUploadStatus(session.getUploadId()).getMissingChunks());
+
+        uploader.abortUploadSession(session.getUploadId()).join();
+    }
+
+    @Test
+    void multipartMode_StreamsPartsToS3WithoutLocalFile() throws Exception {
+        int chunkSize = 1024 * 1024;
+        byte[] image = new byte[11 * chunkSize + 100];
+        new Random(2).nextBytes(image);
+
+        //in-process stand-in for S3: records each part body by part number
+        S3AsyncClient s3Client = mock(S3AsyncClient.class);
+        Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().uploadId("mpu-1").build()));
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            parts.put(request.partNumber(), readBody(invocation.getArgument(1)));
+            return CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build());
+        });
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+        when(s3Client.utilities()).thenReturn(S3Utilities.builder().region(Region.AP_SOUTHEAST_1).build());
+        ImageChunkUploader multipartUploader = new ImageChunkUploader();
+        ReflectionTestUtils.setField(multipartUploader, "blobStore", new S3Service(s3Client, mock(S3Presigner.class), 15, 60, 5, 100));
+        ReflectionTestUtils.setField(multipartUploader, "imagePipelineService", imagePipelineService);
+        ReflectionTestUtils.setField(multipartUploader, "imageBlobService", imageBlobService);
+        ReflectionTestUtils.setField(multipartUploader, "maxUploadSize", 20L * chunkSize);
+        ReflectionTestUtils.setField(multipartUploader, "uploadMode", ImageChunkUploader.S3_MULTIPART_MODE);
+        ReflectionTestUtils.setField(multipartUploader, "multipartBuffers", new S3MultipartUploadSink.BufferBudget(20L * chunkSize));
+
+        UploadSessionDTO session = multipartUploader.initUpload("image.jpg", image.length, chunkSize, ImageChunkUploader.UploadTarget.TOOL).join();
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < session.getTotalChunks(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(3));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<UploadSessionDTO>> writes = new ArrayList<>();
+            for (int chunk : order) {
+                writes.add(executor.submit(() -> multipartUploader.writeChunk(session.getUploadId(), chunk, chunkStream(image, chunk, chunkSize)).join()));
+            }
+            for (Future<UploadSessionDTO> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<String, String> result = multipartUploader.completeUpload(session.getUploadId(), sha256(image)).join();
+
+        //the multipart key is fixed up front, so the object keeps its upload name
+        assertTrue(result.get("imageUrl").endsWith("tooltrack/Tool_Images/" + session.getImage_name()));
+        assertEquals(session.getImage_name(), result.get("image_name"));
+        assertEquals(Set.of(1, 2, 3), parts.keySet());
+        assertEquals(5 * chunkSize, parts.get(1).length);
+        byte[] assembled = new byte[image.length];
+        int position = 0;
+        for (int partNumber = 1; partNumber <= 3; partNumber++) {
+            System.arraycopy(parts.get(partNumber), 0, assembled, position, parts.get(partNumber).length);
+            position += parts.get(partNumber).length;
+        }
+        assertArrayEquals(image, assembled);
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        assertEquals(List.of(1, 2, 3), complete.getValue().multipartUpload().parts().stream().map(CompletedPart::partNumber).toList());
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class));
+        assertFalse(Files.exists(Path.of("backend/uploads", session.getImage_name())));
+    }
+
+    @Test
+    void multipartMode_RefusesChunksOnceTheGlobalBufferIsFull() throws Exception {
+        int chunkSize = 1024 * 1024;
+        S3Service s3Service = mock(S3Service.class);
+        when(s3Service.createMultipartUpload(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture("mpu"));
+        CompletableFuture<CompletedPart> firstPart = new CompletableFuture<>();
+        when(s3Service.uploadPart(anyString(), anyString(), anyString(), anyInt(), any(byte[].class))).thenReturn(firstPart);
+        when(s3Service.abortMultipartUpload(anyString(), anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        S3MultipartUploadSink.BufferBudget budget = new S3MultipartUploadSink.BufferBudget(S3MultipartUploadSink.MIN_PART_SIZE);
+        S3MultipartUploadSink first = S3MultipartUploadSink.start(s3Service, "Tool_Images/", "a.jpg", 5L * chunkSize, chunkSize, budget).join();
+        S3MultipartUploadSink second = S3MultipartUploadSink.start(s3Service, "Tool_Images/", "b.jpg", 5L * chunkSize, chunkSize, budget).join();
+
+        byte[] chunk = new byte[chunkSize];
+        first.write(0, 0, chunkSize, new ByteArrayInputStream(chunk)).join();
+        //the first upload holds the whole budget for its part, so another upload cannot start one
+        assertThrows(RejectedExecutionException.class, () -> second.write(0, 0, chunkSize, new ByteArrayInputStream(chunk)));
+        for (int i = 1; i < 5; i++) {
+            first.write(i, (long) i * chunkSize, chunkSize, new ByteArrayInputStream(chunk));
+        }
+        assertEquals(S3MultipartUploadSink.MIN_PART_SIZE, budget.used());
+
+        //once the part is in S3 its buffer is released and the retried chunk goes through
+        firstPart.complete(CompletedPart.builder().partNumber(1).eTag("etag-1").build());
+        assertEquals(0, budget.used());
+        second.write(0, 0, chunkSize, new ByteArrayInputStream(chunk)).join();
+        second.abort().join();
+        assertEquals(0, budget.used());
+    }
+
+    private static ByteArrayInputStream chunkStream(byte[] image, int chunk) {
+        return chunkStream(image, chunk, CHUNK_SIZE);
+    }
+
+    private static ByteArrayInputStream chunkStream(byte[] image, int chunk, int chunkSize) {
+        int from = chunk * chunkSize;
+        return new ByteArrayInputStream(Arrays.copyOfRange(image, from, Math.min(from + chunkSize, image.length)));
+    }
+
+    private static byte[] readBody(AsyncRequestBody body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        body.subscribe(new Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                out.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                done.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
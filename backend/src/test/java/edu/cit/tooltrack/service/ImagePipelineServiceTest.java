@@ -0,0 +1,126 @@
+package edu.cit.tooltrack.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ImagePipelineServiceTest {
+
+    @Mock
+    private BlobStore blobStore;
+
+    @InjectMocks
+    private ImagePipelineService imagePipelineService;
+
+    public ImagePipelineServiceTest() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(imagePipelineService, "thumbnailSize", 40);
+        ReflectionTestUtils.setField(imagePipelineService, "mediumSize", 100);
+        ReflectionTestUtils.setField(imagePipelineService, "quality", 0.8f);
+        ReflectionTestUtils.setField(imagePipelineService, "maxPixels", 1_000_000L);
+        ReflectionTestUtils.setField(imagePipelineService, "threads", 1);
+        imagePipelineService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        imagePipelineService.stop();
+    }
+
+    @Test
+    void encodeVariants_AppliesExifOrientationAndStripsMetadata() throws Exception {
+        //landscape photo, red left half and blue right half, tagged "rotate 90 clockwise"
+        byte[] photo = withExifOrientation(jpeg(400, 200), 6);
+
+        Map<String, byte[]> variants = imagePipelineService.encodeVariants(() -> new MemoryCacheImageInputStream(new ByteArrayInputStream(photo)));
+
+        BufferedImage medium = ImageIO.read(new ByteArrayInputStream(variants.get(ImagePipelineService.MEDIUM)));
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(variants.get(ImagePipelineService.THUMBNAIL)));
+        assertEquals(50, medium.getWidth());
+        assertEquals(100, medium.getHeight());
+        assertEquals(20, thumbnail.getWidth());
+        assertEquals(40, thumbnail.getHeight());
+        //after rotating clockwise the left half ends up on top
+        assertTrue(new Color(medium.getRGB(25, 10)).getRed() > 200);
+        assertTrue(new Color(medium.getRGB(25, 90)).getBlue() > 200);
+        assertFalse(new String(variants.get(ImagePipelineService.MEDIUM), StandardCharsets.ISO_8859_1).contains("Exif"));
+    }
+
+    @Test
+    void createVariants_UnreadableFileYieldsNoVariants() throws Exception {
+        Path notAnImage = Files.createTempFile("variants", ".jpg");
+        try {
+            Files.write(notAnImage, new byte[]{1, 2, 3});
+
+            assertEquals(Map.of(), imagePipelineService.createVariants(notAnImage, "Tool_Images/", "image.jpg").join());
+            verify(blobStore, never()).upload(any(byte[].class), any(), any());
+        } finally {
+            Files.delete(notAnImage);
+        }
+    }
+
+    @Test
+    void createVariants_ReadsStoredOriginalFromBuffer() throws Exception {
+        when(blobStore.read(eq("Tool_Images/"), eq("image.jpg"), anyLong())).thenReturn(CompletableFuture.completedFuture(ByteBuffer.wrap(jpeg(400, 200)).asReadOnlyBuffer()));
+        when(blobStore.upload(any(byte[].class), eq("Tool_Images/"), anyString()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture("https://store/" + invocation.getArgument(2)));
+
+        Map<String, String> variants = imagePipelineService.createVariants("Tool_Images/", "image.jpg").join();
+
+        assertEquals("https://store/image_thumb.jpg", variants.get("thumbnail_url"));
+        assertEquals("https://store/image_medium.jpg", variants.get("medium_url"));
+    }
+
+    private static byte[] jpeg(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(width / 2, 0, width / 2, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    //inserts an Exif APP1 segment holding only the orientation tag right after SOI
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        ByteBuffer tiff = ByteBuffer.allocate(26);
+        tiff.put("MM".getBytes(StandardCharsets.US_ASCII)).putShort((short) 42).putInt(8);
+        tiff.putShort((short) 1);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+        byte[] exif = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer result = ByteBuffer.allocate(jpeg.length + 4 + exif.length + tiff.capacity());
+        result.put(jpeg, 0, 2);
+        result.put((byte) 0xFF).put((byte) 0xE1).putShort((short) (2 + exif.length + tiff.capacity()));
+        result.put(exif).put(tiff.array());
+        result.put(jpeg, 2, jpeg.length - 2);
+        return result.array();
+    }
+}
@@ -0,0 +1,56 @@
+package edu.cit.tooltrack.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalBlobStoreTest {
+
+    @TempDir
+    private Path root;
+
+    @Test
+    void storedObjectsAreReadBackMappedAndDeletedByKey() throws Exception {
+        LocalBlobStore store = new LocalBlobStore(root.toString(), "http://localhost:8080/files");
+        Path source = Files.writeString(root.resolve("source.jpg"), "from a file");
+
+        assertEquals("http://localhost:8080/files/tooltrack/Tool_Images/a.jpg", store.upload(source.toFile(), "Tool_Images/", "a.jpg").join());
+        store.upload("from memory".getBytes(StandardCharsets.UTF_8), "QR_Images/", "b.jpg").join();
+
+        ByteBuffer read = store.read("Tool_Images/", "a.jpg", 1024).join();
+        assertInstanceOf(MappedByteBuffer.class, read);
+        assertEquals("from a file", StandardCharsets.UTF_8.decode(read).toString());
+        //larger than the caller accepts: refused before anything is mapped
+        CompletionException tooLarge = assertThrows(CompletionException.class, () -> store.read("Tool_Images/", "a.jpg", 4).join());
+        assertInstanceOf(IllegalArgumentException.class, tooLarge.getCause());
+        assertEquals("from memory", Files.readString(store.resolve(store.objectKey("QR_Images/", "b.jpg"))));
+        //no temp files are left next to the objects
+        try (var files = Files.list(root.resolve("tooltrack/Tool_Images"))) {
+            assertEquals(List.of("a.jpg"), files.map(path -> path.getFileName().toString()).toList());
+        }
+
+        Map<String, String> failed = store.deleteObjects(List.of("tooltrack/Tool_Images/a.jpg", "tooltrack/QR_Images/missing.jpg")).join();
+        assertEquals(Map.of(), failed);
+        CompletionException missing = assertThrows(CompletionException.class, () -> store.read("Tool_Images/", "a.jpg", 1024).join());
+        assertInstanceOf(NoSuchElementException.class, missing.getCause());
+    }
+
+    @Test
+    void keysCannotEscapeTheRoot() {
+        LocalBlobStore store = new LocalBlobStore(root.resolve("store").toString(), "http://localhost:8080/files/");
+
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("tooltrack/../../secret.txt"));
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("/etc/passwd"));
+    }
+}
@@ -0,0 +1,89 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.Websocket.NotificationSocketController;
+import edu.cit.tooltrack.Websocket.WebsocketConfiguration;
+import edu.cit.tooltrack.dto.CursorPage;
+import edu.cit.tooltrack.dto.NotificationMessageDTO;
+import edu.cit.tooltrack.entity.User;
+import edu.cit.tooltrack.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:notifications;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "tooltrack.notifications.max-per-user=2",
+        "tooltrack.notifications.dispatch-linger-ms=500"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({NotificationService.class, NotificationDispatcher.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationServiceTest {
+
+    private static final String EMAIL = "staff@example.com";
+
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private SimpMessagingTemplate messagingTemplate;
+    @MockitoBean
+    private NotificationSocketController notificationSocketController;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void inboxKeepsPerUserSequenceForPagingCatchUpAndCompaction() {
+        User user = new User();
+        user.setEmail(EMAIL);
+        userRepository.save(user);
+
+        for (int i = 1; i <= 3; i++) {
+            notificationService.sendNotification(NotificationMessageDTO.builder().toolName("Hammer " + i).message("Approved").user_email(EMAIL).build());
+        }
+
+        //pushed after each commit, coalesced by the dispatcher into one frame
+        ArgumentCaptor<List<NotificationMessageDTO>> live = ArgumentCaptor.forClass(List.class);
+        verify(messagingTemplate, timeout(5000)).convertAndSendToUser(eq(EMAIL), eq(WebsocketConfiguration.NOTIFICATIONS_QUEUE), live.capture());
+        assertEquals(List.of(1, 2, 3), live.getValue().stream().map(NotificationMessageDTO::getSeq).toList());
+
+        CursorPage<NotificationMessageDTO> first = notificationService.getInbox(EMAIL, null, 2);
+        assertEquals(List.of(3, 2), first.getItems().stream().map(NotificationMessageDTO::getSeq).toList());
+        assertEquals(List.of(1), notificationService.getInbox(EMAIL, first.getNext(), 2).getItems().stream().map(NotificationMessageDTO::getSeq).toList());
+
+        //a session that saw seq 1 gets 2 and 3 in one frame, addressed to that session only
+        notificationService.catchUp(EMAIL, "session-1", 1);
+        ArgumentCaptor<List<NotificationMessageDTO>> replayed = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<MessageHeaders> headers = ArgumentCaptor.forClass(MessageHeaders.class);
+        verify(messagingTemplate).convertAndSendToUser(eq(EMAIL), eq(WebsocketConfiguration.NOTIFICATIONS_QUEUE), replayed.capture(), headers.capture());
+        assertEquals(List.of(2, 3), replayed.getValue().stream().map(NotificationMessageDTO::getSeq).toList());
+        assertEquals("session-1", SimpMessageHeaderAccessor.getSessionId(headers.getValue()));
+
+        //max-per-user=2 keeps the newest two
+        notificationService.compactInboxes();
+        assertEquals(List.of(3, 2), notificationService.getInbox(EMAIL, null, 10).getItems().stream().map(NotificationMessageDTO::getSeq).toList());
+        verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+    }
+}
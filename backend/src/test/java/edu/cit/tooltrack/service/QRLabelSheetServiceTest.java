@@ -0,0 +1,76 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.entity.ToolItems;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class QRLabelSheetServiceTest {
+
+    @Spy
+    private QRcodeService qrcodeService = new QRcodeService();
+    @Mock
+    private ToolItemService toolItemService;
+
+    @InjectMocks
+    private QRLabelSheetService qrLabelSheetService;
+
+    public QRLabelSheetServiceTest() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(qrLabelSheetService, "threads", 2);
+        ReflectionTestUtils.setField(qrLabelSheetService, "maxLabels", 100);
+        qrLabelSheetService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        qrLabelSheetService.stop();
+    }
+
+    @Test
+    void prepareLabels_UploadsOnlyMissingQrImagesInOneSave() throws Exception {
+        doReturn(CompletableFuture.completedFuture("https://s3/qr.jpg")).when(qrcodeService).uploadImage(any(byte[].class), anyString());
+        List<ToolItems> tools = new ArrayList<>();
+        for (int id = 1; id <= 13; id++) {
+            ToolItems tool = new ToolItems();
+            tool.setTool_id(id);
+            tool.setName("Cordless drill with a very long descriptive name #" + id);
+            tool.setLocation("Room " + id);
+            //only tools 1 and 2 have never had a QR image
+            tool.setQr_code(id <= 2 ? null : "https://s3/existing.jpg");
+            tools.add(tool);
+        }
+
+        List<QRLabelSheetService.Label> labels = qrLabelSheetService.prepareLabels(tools).join();
+
+        assertEquals(13, labels.size());
+        assertEquals(1, labels.get(0).tool().getTool_id());
+        verify(qrcodeService, times(2)).uploadImage(any(byte[].class), anyString());
+        ArgumentCaptor<List<ToolItems>> saved = ArgumentCaptor.captor();
+        verify(toolItemService).saveQrImages(saved.capture());
+        assertEquals(List.of(1, 2), saved.getValue().stream().map(ToolItems::getTool_id).sorted().toList());
+        assertTrue(saved.getValue().stream().allMatch(tool -> tool.getQr_code_name().endsWith("_" + tool.getTool_id())));
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        qrLabelSheetService.writePdf(labels, pdf);
+        try (PDDocument document = Loader.loadPDF(pdf.toByteArray())) {
+            assertEquals(2, document.getNumberOfPages());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package edu.cit.tooltrack.service;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.RGBLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QRcodeServiceTest {
+
+    private final QRcodeService qrcodeService = new QRcodeService();
+
+    @Test
+    void createQR_RendersDecodable500pxPng() throws Exception {
+        //the second call reuses the same thread's canvas, so it must not keep modules from the first
+        qrcodeService.createQR("tool_id: 1234567890 with a longer payload");
+        byte[] png = qrcodeService.createQR("tool_id: 42");
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(QRcodeService.QR_SIZE, image.getWidth());
+        assertEquals(QRcodeService.QR_SIZE, image.getHeight());
+        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new RGBLuminanceSource(image.getWidth(), image.getHeight(), pixels)));
+        assertEquals("tool_id: 42", new QRCodeReader().decode(bitmap).getText());
+    }
+}
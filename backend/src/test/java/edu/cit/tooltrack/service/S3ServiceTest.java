@@ -0,0 +1,59 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.dto.PresignedUrlDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class S3ServiceTest {
+
+    //presigning is local, so a real presigner with dummy credentials needs no network
+    private final S3Presigner presigner = S3Presigner.builder()
+            .region(Region.AP_SOUTHEAST_1)
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("access", "secret")))
+            .build();
+    private final S3Service s3Service = new S3Service(mock(S3AsyncClient.class), presigner, 15, 60, 5, 100);
+
+    @AfterEach
+    void tearDown() {
+        presigner.close();
+    }
+
+    @Test
+    void presignPut_SignsLengthAndChecksum() {
+        String sha256 = "ab".repeat(32);
+
+        PresignedUrlDTO put = s3Service.presignPut("Tool_Images/", sha256 + ".jpg", 1234, sha256);
+
+        assertEquals("PUT", put.getMethod());
+        assertTrue(put.getUrl().contains("tooltrack/Tool_Images/" + sha256 + ".jpg"));
+        assertEquals(Base64.getEncoder().encodeToString(HexFormat.of().parseHex(sha256)), put.getHeaders().get("x-amz-checksum-sha256"));
+        assertEquals("image/jpeg", put.getHeaders().get("content-type"));
+        assertFalse(put.getHeaders().containsKey("host"));
+        assertTrue(put.getExpiresAt().isBefore(Instant.now().plus(Duration.ofMinutes(16))));
+    }
+
+    @Test
+    void presignGet_ReusesTheUrlUntilNearExpiry() {
+        PresignedUrlDTO first = s3Service.presignGet("Tool_Images/", "image.jpg");
+        PresignedUrlDTO second = s3Service.presignGet("Tool_Images/", "image.jpg");
+        PresignedUrlDTO other = s3Service.presignGet("Tool_Images/", "other.jpg");
+
+        assertSame(first, second);
+        assertNotEquals(first.getUrl(), other.getUrl());
+        assertEquals("GET", first.getMethod());
+        assertTrue(first.getExpiresAt().isAfter(Instant.now().plus(Duration.ofMinutes(55))));
+    }
+}
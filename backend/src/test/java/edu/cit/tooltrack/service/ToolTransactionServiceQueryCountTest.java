@@ -0,0 +1,215 @@
+package edu.cit.tooltrack.service;
+
+import edu.cit.tooltrack.dto.CursorPage;
+import edu.cit.tooltrack.dto.TransactionsDTO;
+import edu.cit.tooltrack.entity.ToolItems;
+import edu.cit.tooltrack.entity.ToolTransaction;
+import edu.cit.tooltrack.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tooltrack;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ToolTransactionService.class, AnalyticsRollupService.class})
+class ToolTransactionServiceQueryCountTest {
+
+    private static final int USERS = 5;
+    private static final int TOOLS = 10;
+    private static final int TRANSACTIONS = 50;
+
+    @Autowired
+    private ToolTransactionService toolTransactionService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+
+    @MockitoBean
+    private UserService userService;
+    @MockitoBean
+    private ToolItemService toolItemService;
+    @MockitoBean
+    private NotificationService notificationService;
+
+    private Statistics statistics;
+    private User firstUser;
+    private ToolItems lastTool;
+
+    @BeforeEach
+    void setUp() {
+        User[] users = new User[USERS];
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setFirst_name("First" + i);
+            user.setLast_name("Last" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setRole("Staff");
+            users[i] = entityManager.persist(user);
+        }
+        ToolItems[] tools = new ToolItems[TOOLS];
+        for (int i = 0; i < TOOLS; i++) {
+            ToolItems tool = new ToolItems();
+            tool.setName("Tool" + i);
+            tool.setCategory("Category" + (i % 3));
+            tools[i] = entityManager.persist(tool);
+        }
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            ToolTransaction transaction = new ToolTransaction();
+            transaction.setUser_id(users[i % USERS]);
+            transaction.setTool_id(tools[i < TOOLS ? 0 : i % TOOLS]);
+            transaction.setBorrow_date(Timestamp.valueOf(LocalDateTime.now().minusDays(i)));
+            transaction.setStatus(ToolTransaction.Status.approved);
+            transaction.setTransaction_type(ToolTransaction.TransactionType.borrow);
+            entityManager.persist(transaction);
+        }
+        firstUser = users[0];
+        lastTool = tools[TOOLS - 1];
+        entityManager.flush();
+        analyticsRollupService.rebuild();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getAllTransactions_UsesSingleQuery() {
+        List<TransactionsDTO> result = toolTransactionService.getAllTransactions();
+
+        assertEquals(TRANSACTIONS, result.size());
+        assertEquals("Tool0", result.get(0).getTool_name());
+        assertEquals("Tool0", result.get(1).getTool_name());
+        assertEquals("user0@example.com", result.get(0).getEmail());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getTransactionsPage_UnpagedIsBoundedKeysetRead() {
+        CursorPage<TransactionsDTO> page = toolTransactionService.getTransactionsPage(null, null);
+
+        assertEquals(TRANSACTIONS, page.getItems().size());
+        assertNull(page.getNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        CursorPage<TransactionsDTO> first = toolTransactionService.getTransactionsPage(null, TRANSACTIONS - 1);
+        assertEquals(TRANSACTIONS - 1, first.getItems().size());
+        assertEquals(1, toolTransactionService.getTransactionsPage(first.getNext(), null).getItems().size());
+    }
+
+    @Test
+    void getTranscationsByEmail_UsesSingleQuery() {
+        List<TransactionsDTO> result = toolTransactionService.getTranscationsByEmail("user1@example.com");
+
+        assertEquals(TRANSACTIONS / USERS, result.size());
+        assertTrue(result.stream().allMatch(dto -> dto.getEmail().equals("user1@example.com")));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void countAllTools_ReadsRollups() {
+        Map<String, Integer> result = toolTransactionService.countAllTools();
+
+        assertEquals(TOOLS, result.size());
+        assertEquals("Tool0", result.keySet().iterator().next());
+        assertEquals(TRANSACTIONS / TOOLS + TOOLS - 1, result.get("Tool0"));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getTopBorrowedTools_ReturnsLimitedDescendingCounts() {
+        Map<String, Integer> result = toolTransactionService.getTopBorrowedTools(5);
+
+        assertEquals(5, result.size());
+        assertEquals("Tool0", result.keySet().iterator().next());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getFormatedDatesSortedBy_ReadsRollups() {
+        Map<Month, Long> result = toolTransactionService.getFormatedDatesSortedBy("Last6months");
+
+        assertEquals(TRANSACTIONS, result.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getFormatedDatesSortedBy_Alltime_ReturnsAllBuckets() {
+        Map<Month, Long> result = toolTransactionService.getFormatedDatesSortedBy("Alltime");
+
+        assertNotNull(result);
+        assertEquals(TRANSACTIONS, result.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void addTransationAndApproval_UpdateRollupsIncrementally() {
+        when(userService.getUserFullDetails(firstUser.getEmail())).thenReturn(entityManager.find(User.class, firstUser.getUser_id()));
+        when(toolItemService.getToolItem(lastTool.getTool_id())).thenReturn(entityManager.find(ToolItems.class, lastTool.getTool_id()));
+        int before = toolTransactionService.countAllTools().get(lastTool.getName());
+
+        ToolTransaction transaction = toolTransactionService.addTransation(lastTool.getTool_id(), firstUser.getEmail());
+        assertNotNull(transaction);
+        assertEquals(before + 1, toolTransactionService.countAllTools().get(lastTool.getName()));
+        assertEquals(TRANSACTIONS + 1, toolTransactionService.countByCategory().values().stream().mapToLong(Long::longValue).sum());
+
+        int approvedBefore = toolTransactionService.getTopBorrowedTools(TOOLS).get(lastTool.getName());
+        toolTransactionService.approval(transaction.getTransaction_id(), true);
+        toolTransactionService.approval(transaction.getTransaction_id(), true);
+        assertEquals(approvedBefore + 1, toolTransactionService.getTopBorrowedTools(TOOLS).get(lastTool.getName()));
+
+        toolTransactionService.approval(transaction.getTransaction_id(), false);
+        assertEquals(approvedBefore, toolTransactionService.getTopBorrowedTools(TOOLS).get(lastTool.getName()));
+    }
+
+    @Test
+    void recordCategoryChange_MovesToolCountsAndLaterBorrowsFollow() {
+        ToolItems tool = entityManager.find(ToolItems.class, lastTool.getTool_id());
+        String oldCategory = tool.getCategory();
+        Map<String, Long> before = toolTransactionService.countByCategory();
+
+        analyticsRollupService.recordCategoryChange(tool.getTool_id(), oldCategory, "Renamed");
+        tool.setCategory("Renamed");
+        entityManager.flush();
+        //the native increments bypass the rollup entities already loaded by the read above
+        entityManager.clear();
+
+        Map<String, Long> after = toolTransactionService.countByCategory();
+        long moved = after.get("Renamed");
+        assertTrue(moved > 0);
+        assertEquals(before.get(oldCategory) - moved, after.get(oldCategory));
+
+        when(userService.getUserFullDetails(firstUser.getEmail())).thenReturn(entityManager.find(User.class, firstUser.getUser_id()));
+        when(toolItemService.getToolItem(tool.getTool_id())).thenReturn(tool);
+        toolTransactionService.addTransation(tool.getTool_id(), firstUser.getEmail());
+        entityManager.clear();
+        assertEquals(moved + 1, toolTransactionService.countByCategory().get("Renamed"));
+    }
+}
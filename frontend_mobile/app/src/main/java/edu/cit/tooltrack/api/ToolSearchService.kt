@@ -17,9 +17,9 @@ data class ToolItem(
 )
 
 // New model that matches the API response from getAllTool endpoint
+// (the server no longer sends a tool's transaction history here; use the transaction endpoints)
 data class ApiToolItem(
     val tool_id: Int,
-    val toolTransaction: List<Any>,
     val tool_condition: String,
     val status: String,
     val category: String?,
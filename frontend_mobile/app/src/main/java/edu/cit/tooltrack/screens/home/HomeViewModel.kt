@@ -235,7 +235,6 @@ class HomeViewModel(application: Application) : AndroidViewModel(application) {
                     // Convert ToolItem to ApiToolItem for compatibility
                     val apiToolItem = ApiToolItem(
                         tool_id = exactMatch.id,
-                        toolTransaction = emptyList(),
                         tool_condition = "UNKNOWN", // Not available in ToolItem
                         status = exactMatch.status.uppercase(),
                         category = exactMatch.categoryName,
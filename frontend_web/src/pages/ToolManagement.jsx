@@ -15,13 +15,21 @@ const ToolManagement = () => {
 
 
   useEffect(() => {
-    axios.get(`${import.meta.env.VITE_BACKEND_URL}/toolitem/getAllTool`, {
-      headers: {
-        Authorization: "Bearer " + localStorage.getItem("token")
-      }
-    }).then(response => {
-      console.log(response.data);
-      setToolItems(response.data);
+    // the list is paged; keep following X-Next-Cursor until the last page
+    const fetchPage = (cursor, items) =>
+      axios.get(`${import.meta.env.VITE_BACKEND_URL}/toolitem/getAllTool`, {
+        params: { size: 200, ...(cursor ? { cursor } : {}) },
+        headers: {
+          Authorization: "Bearer " + localStorage.getItem("token")
+        }
+      }).then(response => {
+        const all = [...items, ...response.data];
+        const next = response.headers["x-next-cursor"];
+        return next ? fetchPage(next, all) : all;
+      });
+
+    fetchPage(null, []).then(items => {
+      setToolItems(items);
     }).catch(error => {
       console.error("Error fetching tool items:", error);// <--- set error here
     });